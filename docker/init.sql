@@ -5,24 +5,46 @@
 -- Seleciona o banco de dados
 USE SellOutEasyTrack_SQL;
 
--- 
--- !! ATENÇÃO !!
--- SUBSTITUA A ESTRUTURA DE TABELA ABAIXO PELA ESTRUTURA CORRETA DO SEU PROJETO
--- (Baseado em Venda.java e VendaDAO.java)
+--
+-- Estrutura usada pelo VendaDAO. A aplicação também aplica estas definições
+-- na inicialização (dao.SchemaMigrator), então este script é opcional.
 --
 CREATE TABLE IF NOT EXISTS vendas (
     id INT AUTO_INCREMENT PRIMARY KEY,
     produto VARCHAR(255) NOT NULL,
-    valor DECIMAL(10, 2) NOT NULL,
+    quantidade INT NOT NULL,
+    valor_unitario DECIMAL(10, 2) NOT NULL,
     data_venda DATE NOT NULL,
-    cliente VARCHAR(255),
-    metodo_pagamento VARCHAR(50),
-    status_venda VARCHAR(50),
-    origem VARCHAR(100)
-);
+    versao INT NOT NULL DEFAULT 0
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4;
+
+-- Índice de data para os agregados por janela (VendaDAO.obterAgregadosAnalytics)
+CREATE INDEX idx_vendas_data ON vendas (data_venda);
+
+-- Índice cobrindo as agregações por produto (obterDadosGrafico, produtoMaisVendido)
+-- e as buscas por prefixo (LIKE 'abc%')
+CREATE INDEX idx_vendas_produto_qtd_valor ON vendas (produto, quantidade, valor_unitario);
+
+-- Busca de produto por trecho (usado com DB_FULLTEXT_SEARCH=true)
+CREATE FULLTEXT INDEX ft_vendas_produto ON vendas (produto);
+
+-- Contador de alterações lido pelo cache da aplicação (VendaDAO.obterVersaoDados):
+-- uma linha incrementada pelos triggers a cada venda inserida, atualizada ou removida
+CREATE TABLE IF NOT EXISTS vendas_versao (
+    id TINYINT PRIMARY KEY,
+    versao BIGINT NOT NULL
+) ENGINE=InnoDB;
+INSERT IGNORE INTO vendas_versao (id, versao) VALUES (1, 0);
+
+CREATE TRIGGER trg_vendas_versao_insercao AFTER INSERT ON vendas FOR EACH ROW
+    UPDATE vendas_versao SET versao = versao + 1 WHERE id = 1;
+CREATE TRIGGER trg_vendas_versao_atualizacao AFTER UPDATE ON vendas FOR EACH ROW
+    UPDATE vendas_versao SET versao = versao + 1 WHERE id = 1;
+CREATE TRIGGER trg_vendas_versao_remocao AFTER DELETE ON vendas FOR EACH ROW
+    UPDATE vendas_versao SET versao = versao + 1 WHERE id = 1;
 
 -- Você pode adicionar dados de exemplo aqui, se desejar
--- INSERT INTO vendas (produto, valor, data_venda, cliente, metodo_pagamento, status_venda, origem) 
--- VALUES 
--- ('Produto Exemplo 1', 99.90, '2025-01-10', 'Cliente A', 'Cartão de Crédito', 'Concluída', 'Loja Física'),
--- ('Produto Exemplo 2', 49.50, '2025-01-11', 'Cliente B', 'Pix', 'Pendente', 'Online');
+-- INSERT INTO vendas (produto, quantidade, valor_unitario, data_venda)
+-- VALUES
+-- ('Produto Exemplo 1', 2, 99.90, '2025-01-10'),
+-- ('Produto Exemplo 2', 1, 49.50, '2025-01-11');
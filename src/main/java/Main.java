@@ -1,4 +1,5 @@
 import com.formdev.flatlaf.FlatDarculaLaf;
+import dao.SchemaMigrator;
 import view.SimplifiedDashboardView;
 import util.DBConnection;
 import util.RGraphUtil;
@@ -146,6 +147,7 @@ public class Main {
         try {
             if (DBConnection.testarConexao()) {
                 System.out.println("MySQL conectado");
+                migrarSchema();
             } else {
                 System.err.println("Falha na conexão MySQL");
                 todasOk = false;
@@ -183,6 +185,18 @@ public class Main {
         return true;
     }
 
+    private static void migrarSchema() {
+        SchemaMigrator migrator = new SchemaMigrator();
+        try {
+            int aplicadas = migrator.migrar();
+            System.out.println("Schema do banco na versão V" + migrator.getVersaoAtual()
+                    + (aplicadas > 0 ? " (" + aplicadas + " migrações aplicadas)" : ""));
+        } catch (Exception e) {
+            // Sem permissão de DDL o sistema ainda funciona se o schema já estiver correto
+            System.err.println("Não foi possível migrar o schema: " + e.getMessage());
+        }
+    }
+
     private static void mostrarErroInicializacao(Exception e) {
         System.err.println("ERRO CRÍTICO NA INICIALIZAÇÃO");
         e.printStackTrace();
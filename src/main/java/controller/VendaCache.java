@@ -0,0 +1,320 @@
+package controller;
+
+import dao.VendaDAO;
+import model.DashboardSummary;
+import model.Venda;
+import model.VendaStore;
+import model.VersaoDados;
+import util.AppConfig;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache compartilhado das vendas, usado por todas as instâncias de VendaController.
+ * A tabela é lida uma única vez para um VendaStore colunar; gravações feitas por esta aplicação
+ * atualizam o cache incrementalmente e alterações externas são detectadas comparando o contador
+ * de alterações do banco (vendas_versao, uma linha lida pela chave primária) com o valor esperado pelo cache:
+ * o lido na última carga mais uma unidade por linha que esta aplicação gravou e registrou.
+ */
+public class VendaCache {
+
+    private static final long INTERVALO_VALIDACAO_MS = AppConfig.getLong("CACHE_VALIDACAO_MS", 2000);
+
+    private static final VendaCache INSTANCIA = new VendaCache(new VendaDAO());
+
+    private final VendaDAO vendaDAO;
+
+    // Ordenado por id crescente
+    private VendaStore vendas = new VendaStore();
+    private boolean carregado = false;
+    private long alteracoes = 0;
+    private long ultimaValidacao = 0;
+    private DashboardSummary resumo;
+    private VendaStore instantaneo;
+
+    private final List<Observador> observadores = new CopyOnWriteArrayList<>();
+
+    private final LongAdder acertos = new LongAdder();
+    private final LongAdder falhas = new LongAdder();
+    private final LongAdder recargas = new LongAdder();
+    private final LongAdder invalidacoesExternas = new LongAdder();
+    private final LongAdder validacoes = new LongAdder();
+
+    VendaCache(VendaDAO vendaDAO) {
+        this.vendaDAO = vendaDAO;
+    }
+
+    public static VendaCache getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Registra um observador das alterações do cache. Se o cache já estiver carregado,
+     * o observador recebe imediatamente {@link Observador#onRecarga}.
+     */
+    public synchronized void registrarObservador(Observador observador) {
+        observadores.add(observador);
+        if (carregado) {
+            observador.onRecarga(vendas);
+        }
+    }
+
+    /**
+     * Valida o cache contra o banco (respeitando CACHE_VALIDACAO_MS), recarregando se necessário
+     */
+    public synchronized void sincronizar() throws SQLException {
+        garantirAtualizado();
+    }
+
+    /**
+     * @return carimbo de versão das vendas em cache, validado contra o banco (respeitando CACHE_VALIDACAO_MS)
+     */
+    public synchronized VersaoDados obterVersao() throws SQLException {
+        garantirAtualizado();
+        return getVersaoLocal();
+    }
+
+    /**
+     * Entrega ao observador o conteúdo atual do cache para que ele se reconstrua,
+     * sem risco de perder alterações feitas entre a leitura e a reconstrução
+     */
+    public synchronized void reprocessar(Observador observador) throws SQLException {
+        if (!garantirAtualizado()) {
+            observador.onRecarga(vendas);
+        }
+    }
+
+    /**
+     * @return todas as vendas ordenadas por id decrescente
+     */
+    public synchronized List<Venda> obterTodas() throws SQLException {
+        garantirAtualizado();
+        List<Venda> lista = new ArrayList<>(vendas.tamanho());
+        for (int i = vendas.tamanho() - 1; i >= 0; i--) {
+            lista.add(vendas.toVenda(i));
+        }
+        return lista;
+    }
+
+    /**
+     * Cópia somente leitura do cache, compartilhada entre leitores até a próxima alteração.
+     * Quem a recebe pode percorrê-la fora do lock sem ver gravações concorrentes.
+     */
+    public synchronized VendaStore obterStore() throws SQLException {
+        garantirAtualizado();
+        if (instantaneo == null) {
+            instantaneo = vendas.copiar();
+        }
+        return instantaneo;
+    }
+
+    public synchronized Venda obterPorId(int id) throws SQLException {
+        garantirAtualizado();
+        int indice = vendas.indiceDe(id);
+        return indice >= 0 ? vendas.toVenda(indice) : null;
+    }
+
+    public synchronized DashboardSummary obterResumo() throws SQLException {
+        garantirAtualizado();
+        if (resumo == null) {
+            resumo = vendaDAO.obterResumoDashboard();
+        }
+        return resumo;
+    }
+
+    /**
+     * Acrescenta uma venda já gravada no banco. Idempotente: se uma leitura concorrente recarregou o cache
+     * entre o commit e este registro, a venda já está no store e não é acrescentada de novo.
+     */
+    public synchronized void registrarInsercao(Venda venda) {
+        if (!carregado) {
+            return;
+        }
+        if (venda.getId() <= vendas.getMaiorId() && vendas.indiceDe(venda.getId()) >= 0) {
+            return;
+        }
+        vendas.adicionar(venda);
+        alteracoes++;
+        descartarDerivados();
+        for (Observador observador : observadores) {
+            observador.onInsercao(vendas, vendas.tamanho() - 1);
+        }
+    }
+
+    /**
+     * Idempotente como {@link #registrarInsercao}: uma venda que o cache já tem nesta versão não é reaplicada
+     */
+    public synchronized void registrarAtualizacao(Venda venda) {
+        if (!carregado) {
+            return;
+        }
+        int indice = vendas.indiceDe(venda.getId());
+        if (indice < 0 || vendas.getVersao(indice) == venda.getVersao()) {
+            // Venda que o cache não conhece (a próxima validação recarrega) ou recarga que já trouxe a alteração
+            return;
+        }
+        // O UPDATE não altera a data da venda, então o dia armazenado é mantido
+        int produtoAnterior = vendas.getProdutoId(indice);
+        int quantidadeAnterior = vendas.getQuantidade(indice);
+        long centavosAnterior = vendas.getValorUnitarioCentavos(indice);
+        alteracoes++;
+        vendas.atualizar(indice, venda.getProduto(), venda.getQuantidade(),
+                VendaStore.paraCentavos(venda.getValorUnitario()), venda.getVersao());
+        descartarDerivados();
+        for (Observador observador : observadores) {
+            observador.onAtualizacao(vendas, indice, produtoAnterior, quantidadeAnterior, centavosAnterior);
+        }
+    }
+
+    public synchronized void registrarRemocao(int id) {
+        if (!carregado) {
+            return;
+        }
+        int indice = vendas.indiceDe(id);
+        if (indice >= 0) {
+            for (Observador observador : observadores) {
+                observador.onRemocao(vendas, indice);
+            }
+            vendas.remover(indice);
+            alteracoes++;
+        }
+        descartarDerivados();
+    }
+
+    /**
+     * Descarta o conteúdo; a próxima leitura recarrega a tabela
+     */
+    public synchronized void invalidar() {
+        vendas = new VendaStore();
+        alteracoes = 0;
+        carregado = false;
+        descartarDerivados();
+        for (Observador observador : observadores) {
+            observador.onInvalidacao();
+        }
+    }
+
+    private void descartarDerivados() {
+        resumo = null;
+        instantaneo = null;
+    }
+
+    /**
+     * @return true se o cache foi recarregado do banco
+     */
+    private boolean garantirAtualizado() throws SQLException {
+        if (!carregado) {
+            falhas.increment();
+            recarregar();
+            return true;
+        }
+
+        long agora = System.currentTimeMillis();
+        if (agora - ultimaValidacao < INTERVALO_VALIDACAO_MS) {
+            acertos.increment();
+            return false;
+        }
+
+        validacoes.increment();
+        VersaoDados versaoBanco = vendaDAO.obterVersaoDados();
+        ultimaValidacao = agora;
+        if (versaoBanco.equals(getVersaoLocal())) {
+            acertos.increment();
+            return false;
+        }
+
+        invalidacoesExternas.increment();
+        falhas.increment();
+        recarregar();
+        return true;
+    }
+
+    private void recarregar() throws SQLException {
+        // Lido antes das vendas: uma gravação entre as duas leituras só causa uma recarga a mais
+        alteracoes = vendaDAO.obterVersaoDados().getAlteracoes();
+        vendas = vendaDAO.carregarStore(null);
+        descartarDerivados();
+        carregado = true;
+        ultimaValidacao = System.currentTimeMillis();
+        recargas.increment();
+        for (Observador observador : observadores) {
+            observador.onRecarga(vendas);
+        }
+    }
+
+    private VersaoDados getVersaoLocal() {
+        return new VersaoDados(alteracoes);
+    }
+
+    public synchronized CacheStats getEstatisticas() {
+        return new CacheStats(carregado ? vendas.tamanho() : 0, acertos.sum(), falhas.sum(),
+                recargas.sum(), invalidacoesExternas.sum(), validacoes.sum());
+    }
+
+    /**
+     * Recebe as alterações do cache de forma síncrona, sob o lock do cache.
+     * O store passado é o do próprio cache: pode ser lido durante a chamada, nunca guardado ou alterado.
+     */
+    public interface Observador {
+        void onRecarga(VendaStore vendas);
+
+        void onInsercao(VendaStore vendas, int indice);
+
+        /**
+         * Chamado depois da alteração; os valores anteriores da venda vêm nos parâmetros
+         */
+        void onAtualizacao(VendaStore vendas, int indice, int produtoAnterior, int quantidadeAnterior,
+                           long valorUnitarioCentavosAnterior);
+
+        /**
+         * Chamado antes da remoção, com a venda ainda na posição indicada
+         */
+        void onRemocao(VendaStore vendas, int indice);
+
+        void onInvalidacao();
+    }
+
+    public static class CacheStats {
+        private final int vendasEmCache;
+        private final long acertos;
+        private final long falhas;
+        private final long recargas;
+        private final long invalidacoesExternas;
+        private final long validacoes;
+
+        public CacheStats(int vendasEmCache, long acertos, long falhas, long recargas,
+                          long invalidacoesExternas, long validacoes) {
+            this.vendasEmCache = vendasEmCache;
+            this.acertos = acertos;
+            this.falhas = falhas;
+            this.recargas = recargas;
+            this.invalidacoesExternas = invalidacoesExternas;
+            this.validacoes = validacoes;
+        }
+
+        public int getVendasEmCache() { return vendasEmCache; }
+        public long getAcertos() { return acertos; }
+        public long getFalhas() { return falhas; }
+        public long getRecargas() { return recargas; }
+        public long getInvalidacoesExternas() { return invalidacoesExternas; }
+        public long getValidacoes() { return validacoes; }
+
+        public double getTaxaAcerto() {
+            long total = acertos + falhas;
+            return total == 0 ? 0.0 : acertos * 100.0 / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "Cache de vendas: %d vendas | %d acertos, %d falhas (%.1f%% acerto) | " +
+                            "%d recargas, %d invalidações externas, %d validações",
+                    vendasEmCache, acertos, falhas, getTaxaAcerto(),
+                    recargas, invalidacoesExternas, validacoes);
+        }
+    }
+}
@@ -1,15 +1,32 @@
 package controller;
 
+import dao.VendaBatchWriter;
 import dao.VendaDAO;
+import listener.VendaEventBus;
+import model.AgregadoVendas;
+import model.DashboardSummary;
+import model.ResultadoBusca;
 import model.Venda;
+import model.VendaStore;
+import model.VersaoDados;
 
 import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public class VendaController {
 
+    private static final int LIMITE_BUSCA_PADRAO = 200;
+
     private VendaDAO vendaDAO = new VendaDAO();
+    private final VendaCache cache = VendaCache.getInstancia();
+    private final VendaEventBus eventBus = VendaEventBus.getInstancia();
 
     public void salvarVenda(Venda venda) throws SQLException {
         if (venda == null) {
@@ -28,18 +45,116 @@ public class VendaController {
             throw new IllegalArgumentException("Valor unitário deve ser maior que zero");
         }
 
-        vendaDAO.inserirVenda(venda);
+        int id = vendaDAO.inserirVenda(venda);
+        cache.registrarInsercao(new Venda(id, venda.getProduto(), venda.getQuantidade(),
+                venda.getValorUnitario(), venda.getData()));
+        eventBus.publicarInsercao(Collections.singletonList(id));
+    }
+
+    public List<Integer> salvarVendas(List<Venda> vendas) throws SQLException {
+        if (vendas == null) {
+            throw new IllegalArgumentException("Lista de vendas não pode ser nula");
+        }
+
+        for (Venda venda : vendas) {
+            validarVenda(venda);
+        }
+
+        List<Integer> ids = vendaDAO.inserirVendas(vendas);
+        if (ids.size() == vendas.size()) {
+            for (int i = 0; i < ids.size(); i++) {
+                Venda venda = vendas.get(i);
+                cache.registrarInsercao(new Venda(ids.get(i), venda.getProduto(), venda.getQuantidade(),
+                        venda.getValorUnitario(), venda.getData()));
+            }
+        }
+        eventBus.publicarInsercao(ids);
+        return ids;
+    }
+
+    /**
+     * Abre uma gravação em lote para importações. As vendas de cada commit chegam ao cache e às telas
+     * por {@link #registrarVendasImportadas} logo após o commit, sem ficarem retidas no writer.
+     * @param intervaloCommit linhas entre commits; 0 para uma única transação (tudo ou nada)
+     */
+    public VendaBatchWriter abrirLoteImportacao(int tamanhoLote, int intervaloCommit) throws SQLException {
+        return vendaDAO.abrirLote(tamanhoLote, intervaloCommit, true, this::registrarVendasImportadas);
+    }
+
+    /**
+     * @param vendas vendas já confirmadas no banco, com ids
+     */
+    private void registrarVendasImportadas(List<Venda> vendas) {
+        if (vendas.isEmpty()) {
+            return;
+        }
+        List<Integer> ids = new ArrayList<>(vendas.size());
+        for (Venda venda : vendas) {
+            cache.registrarInsercao(venda);
+            ids.add(venda.getId());
+        }
+        eventBus.publicarInsercao(ids);
     }
 
     public List<Venda> obterTodasVendas() throws SQLException {
-        return vendaDAO.listarVendas();
+        return cache.obterTodas();
+    }
+
+    /**
+     * @return cópia colunar de todas as vendas para varreduras de analytics, gráficos e exportação
+     */
+    public VendaStore obterStore() throws SQLException {
+        return cache.obterStore();
+    }
+
+    /**
+     * @return versão dos dados vista pelo cache; dentro de CACHE_VALIDACAO_MS nem consulta o banco
+     */
+    public VersaoDados obterVersaoDados() throws SQLException {
+        return cache.obterVersao();
+    }
+
+    /**
+     * @return versão dos dados lida direto do banco (uma linha), sem carregar o cache
+     */
+    public VersaoDados obterVersaoDadosBanco() throws SQLException {
+        return vendaDAO.obterVersaoDados();
+    }
+
+    /**
+     * Totais por dia, dia da semana e produto calculados pelo MySQL, sem passar pelo cache
+     */
+    public List<AgregadoVendas> obterAgregadosAnalytics(LocalDate inicioDias, LocalDate inicioHistorico)
+            throws SQLException {
+        return vendaDAO.obterAgregadosAnalytics(inicioDias, inicioHistorico);
+    }
+
+    /**
+     * Valida o cache contra o banco; quem lê estado derivado do cache (ex.: EstadoAnalitico) chama antes
+     */
+    public void sincronizarCache() throws SQLException {
+        cache.sincronizar();
+    }
+
+    public List<Venda> obterVendasPaginadas(int aposId, int limite) throws SQLException {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("Limite deve ser maior que zero");
+        }
+        return vendaDAO.listarVendas(aposId, limite);
+    }
+
+    public int percorrerVendas(Consumer<Venda> consumidor) throws SQLException {
+        if (consumidor == null) {
+            throw new IllegalArgumentException("Consumidor não pode ser nulo");
+        }
+        return vendaDAO.percorrerVendas(consumidor);
     }
 
     public Venda buscarVendaPorId(int id) throws SQLException {
         if (id <= 0) {
             throw new IllegalArgumentException("ID deve ser maior que zero");
         }
-        return vendaDAO.buscarVendaPorId(id);
+        return cache.obterPorId(id);
     }
 
     public void atualizarVenda(Venda venda) throws SQLException {
@@ -63,12 +178,16 @@ public class VendaController {
             throw new IllegalArgumentException("Valor unitário deve ser maior que zero");
         }
 
-        Venda vendaExistente = vendaDAO.buscarVendaPorId(venda.getId());
-        if (vendaExistente == null) {
-            throw new SQLException("Venda com ID " + venda.getId() + " não encontrada");
+        try {
+            vendaDAO.atualizarVenda(venda);
+        } catch (SQLException e) {
+            // Conflito ou venda removida: o cache está desatualizado
+            cache.invalidar();
+            throw e;
         }
-
-        vendaDAO.atualizarVenda(venda);
+        cache.registrarAtualizacao(new Venda(venda.getId(), venda.getProduto(), venda.getQuantidade(),
+                venda.getValorUnitario(), venda.getData(), venda.getVersao() + 1));
+        eventBus.publicarAtualizacao(venda.getId());
     }
 
     public void deletarVenda(int id) throws SQLException {
@@ -76,12 +195,29 @@ public class VendaController {
             throw new IllegalArgumentException("ID deve ser maior que zero");
         }
 
-        Venda vendaExistente = vendaDAO.buscarVendaPorId(id);
-        if (vendaExistente == null) {
-            throw new SQLException("Venda com ID " + id + " não encontrada");
+        try {
+            vendaDAO.deletarVenda(id);
+        } catch (SQLException e) {
+            cache.invalidar();
+            throw e;
         }
+        cache.registrarRemocao(id);
+        eventBus.publicarRemocao(id);
+    }
 
-        vendaDAO.deletarVenda(id);
+    public void deletarVenda(int id, int versao) throws SQLException {
+        if (id <= 0) {
+            throw new IllegalArgumentException("ID deve ser maior que zero");
+        }
+
+        try {
+            vendaDAO.deletarVenda(id, versao);
+        } catch (SQLException e) {
+            cache.invalidar();
+            throw e;
+        }
+        cache.registrarRemocao(id);
+        eventBus.publicarRemocao(id);
     }
 
     public Map<String, Integer> obterProdutoMaisVendido() throws SQLException {
@@ -101,11 +237,15 @@ public class VendaController {
     }
 
     public double calcularTicketMedio() throws SQLException {
-        int totalVendas = contarTotalVendas();
-        if (totalVendas == 0) {
-            return 0.0;
-        }
-        return calcularValorTotalVendas() / totalVendas;
+        return obterResumoDashboard().getTicketMedio();
+    }
+
+    public DashboardSummary obterResumoDashboard() throws SQLException {
+        return cache.obterResumo();
+    }
+
+    public VendaCache.CacheStats obterEstatisticasCache() {
+        return cache.getEstatisticas();
     }
 
     public void validarVenda(Venda venda) throws IllegalArgumentException {
@@ -130,13 +270,43 @@ public class VendaController {
         }
     }
 
-    public List<Venda> buscarVendasPorProduto(String produto) throws SQLException {
+    public ResultadoBusca buscarVendasPorProduto(String produto) throws SQLException {
+        return buscarVendasPorProduto(produto, LIMITE_BUSCA_PADRAO);
+    }
+
+    /**
+     * Busca no banco as vendas do produto: primeiro por prefixo (índice de produto), completando com
+     * {@link VendaDAO#buscarVendasPorTexto} até o limite. Com DB_FULLTEXT_SEARCH=true o complemento só acha
+     * palavras que começam com o termo ("note" acha "Dell Notebook", "book" não); sem ele, qualquer trecho.
+     * @return as vendas e se a lista foi cortada no limite
+     */
+    public ResultadoBusca buscarVendasPorProduto(String produto, int limite) throws SQLException {
         if (produto == null || produto.trim().isEmpty()) {
             throw new IllegalArgumentException("Nome do produto é obrigatório para busca");
         }
+        if (limite <= 0) {
+            throw new IllegalArgumentException("Limite deve ser maior que zero");
+        }
 
-        return vendaDAO.listarVendas().stream()
-                .filter(v -> v.getProduto().toLowerCase().contains(produto.toLowerCase()))
-                .collect(java.util.stream.Collectors.toList());
+        String termo = produto.trim();
+        // Uma venda além do limite indica que havia mais correspondências
+        int pedido = limite == Integer.MAX_VALUE ? limite : limite + 1;
+        List<Venda> resultado = new ArrayList<>(vendaDAO.buscarVendasPorPrefixo(termo, pedido));
+        if (resultado.size() < pedido) {
+            Set<Integer> idsEncontrados = new HashSet<>();
+            for (Venda venda : resultado) {
+                idsEncontrados.add(venda.getId());
+            }
+            for (Venda venda : vendaDAO.buscarVendasPorTexto(termo, pedido)) {
+                if (resultado.size() >= pedido) {
+                    break;
+                }
+                if (idsEncontrados.add(venda.getId())) {
+                    resultado.add(venda);
+                }
+            }
+        }
+        boolean truncado = resultado.size() > limite;
+        return new ResultadoBusca(truncado ? new ArrayList<>(resultado.subList(0, limite)) : resultado, truncado, limite);
     }
 }
\ No newline at end of file
@@ -0,0 +1,243 @@
+package dao;
+
+import util.DBConnection;
+
+import java.sql.*;
+import java.util.*;
+
+/**
+ * Aplica migrações versionadas do schema na inicialização.
+ * As versões aplicadas ficam registradas em schema_migracoes; cada migração roda uma única vez
+ * e é escrita de forma idempotente, pois DDL no MySQL não participa de transações.
+ */
+public class SchemaMigrator {
+
+    private static final String NOME_LOCK = "sellout_schema_migracao";
+    private static final int TIMEOUT_LOCK_SEGUNDOS = 30;
+
+    private final List<Migracao> migracoes = Arrays.asList(
+            new Migracao(1, "Cria tabela vendas no formato do VendaDAO", SchemaMigrator::criarTabelaVendas),
+            new Migracao(2, "Ajusta tabela legada do docker/init.sql às colunas do VendaDAO", SchemaMigrator::ajustarTabelaLegada),
+            new Migracao(3, "Cria índices de data, produto (cobrindo agregações) e FULLTEXT", SchemaMigrator::criarIndicesDesempenho),
+            new Migracao(4, "Adiciona coluna versao para controle otimista de concorrência", SchemaMigrator::adicionarVersao),
+            new Migracao(5, "Cria contador de alterações de vendas mantido por triggers", SchemaMigrator::criarContadorVersao)
+    );
+
+    /**
+     * Aplica as migrações pendentes
+     * @return quantidade de migrações aplicadas
+     * @throws SQLException se alguma migração falhar
+     */
+    public int migrar() throws SQLException {
+        try (Connection conn = DBConnection.getConnection()) {
+            if (!obterLock(conn)) {
+                throw new SQLException("Não foi possível obter o lock de migração do schema");
+            }
+            try {
+                criarTabelaControle(conn);
+                Set<Integer> aplicadas = listarVersoesAplicadas(conn);
+
+                int total = 0;
+                for (Migracao migracao : migracoes) {
+                    if (aplicadas.contains(migracao.versao)) {
+                        continue;
+                    }
+                    System.out.println("Aplicando migração V" + migracao.versao + ": " + migracao.descricao);
+                    migracao.passo.aplicar(conn);
+                    registrarVersao(conn, migracao);
+                    total++;
+                }
+                return total;
+            } finally {
+                liberarLock(conn);
+            }
+        }
+    }
+
+    public int getVersaoAtual() {
+        return migracoes.get(migracoes.size() - 1).versao;
+    }
+
+    private static void criarTabelaVendas(Connection conn) throws SQLException {
+        executar(conn, "CREATE TABLE IF NOT EXISTS vendas (" +
+                "id INT AUTO_INCREMENT PRIMARY KEY, " +
+                "produto VARCHAR(255) NOT NULL, " +
+                "quantidade INT NOT NULL, " +
+                "valor_unitario DECIMAL(10, 2) NOT NULL, " +
+                "data_venda DATE NOT NULL" +
+                ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4");
+    }
+
+    private static void ajustarTabelaLegada(Connection conn) throws SQLException {
+        Set<String> colunas = listarColunas(conn, "vendas");
+
+        if (!colunas.contains("quantidade")) {
+            executar(conn, "ALTER TABLE vendas ADD COLUMN quantidade INT NOT NULL DEFAULT 1 AFTER produto");
+        }
+        if (!colunas.contains("valor_unitario")) {
+            executar(conn, "ALTER TABLE vendas ADD COLUMN valor_unitario DECIMAL(10, 2) NOT NULL DEFAULT 0 AFTER quantidade");
+            if (colunas.contains("valor")) {
+                executar(conn, "UPDATE vendas SET valor_unitario = valor");
+            }
+        }
+        if (colunas.contains("valor")) {
+            // A coluna legada não é preenchida pelo VendaDAO, então não pode continuar NOT NULL
+            executar(conn, "ALTER TABLE vendas MODIFY COLUMN valor DECIMAL(10, 2) NULL");
+        }
+    }
+
+    private static void criarIndicesDesempenho(Connection conn) throws SQLException {
+        Map<String, List<String>> indices = listarIndices(conn, "vendas");
+
+        criarIndiceSeAusente(conn, indices, "idx_vendas_data", "data_venda");
+        criarIndiceSeAusente(conn, indices, "idx_vendas_produto_qtd_valor", "produto", "quantidade", "valor_unitario");
+        if (!indices.containsKey("ft_vendas_produto")) {
+            executar(conn, "CREATE FULLTEXT INDEX ft_vendas_produto ON vendas (produto)");
+        }
+
+        // O índice cobrindo (produto, ...) atende as buscas por prefixo; o índice simples fica redundante
+        if (indices.containsKey("idx_vendas_produto")) {
+            executar(conn, "DROP INDEX idx_vendas_produto ON vendas");
+        }
+    }
+
+    private static void adicionarVersao(Connection conn) throws SQLException {
+        if (!listarColunas(conn, "vendas").contains("versao")) {
+            executar(conn, "ALTER TABLE vendas ADD COLUMN versao INT NOT NULL DEFAULT 0");
+        }
+    }
+
+    /**
+     * Uma linha em vendas_versao incrementada na mesma transação de cada INSERT, UPDATE ou DELETE em vendas,
+     * inclusive de outros clientes, para que a validação do cache seja uma leitura por chave primária
+     */
+    private static void criarContadorVersao(Connection conn) throws SQLException {
+        executar(conn, "CREATE TABLE IF NOT EXISTS vendas_versao (" +
+                "id TINYINT PRIMARY KEY, " +
+                "versao BIGINT NOT NULL" +
+                ") ENGINE=InnoDB");
+        executar(conn, "INSERT IGNORE INTO vendas_versao (id, versao) VALUES (1, 0)");
+        String[][] gatilhos = {
+                {"trg_vendas_versao_insercao", "INSERT"},
+                {"trg_vendas_versao_atualizacao", "UPDATE"},
+                {"trg_vendas_versao_remocao", "DELETE"}
+        };
+        for (String[] gatilho : gatilhos) {
+            executar(conn, "DROP TRIGGER IF EXISTS " + gatilho[0]);
+            executar(conn, "CREATE TRIGGER " + gatilho[0] + " AFTER " + gatilho[1] + " ON vendas FOR EACH ROW " +
+                    "UPDATE vendas_versao SET versao = versao + 1 WHERE id = 1");
+        }
+    }
+
+    private static void criarIndiceSeAusente(Connection conn, Map<String, List<String>> indices,
+                                             String nome, String... colunas) throws SQLException {
+        List<String> esperado = Arrays.asList(colunas);
+        for (List<String> existente : indices.values()) {
+            if (existente.equals(esperado)) {
+                return;
+            }
+        }
+        executar(conn, "CREATE INDEX " + nome + " ON vendas (" + String.join(", ", colunas) + ")");
+    }
+
+    private static Set<String> listarColunas(Connection conn, String tabela) throws SQLException {
+        Set<String> colunas = new HashSet<>();
+        String sql = "SELECT COLUMN_NAME FROM information_schema.COLUMNS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, tabela);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    colunas.add(rs.getString(1).toLowerCase());
+                }
+            }
+        }
+        return colunas;
+    }
+
+    private static Map<String, List<String>> listarIndices(Connection conn, String tabela) throws SQLException {
+        Map<String, List<String>> indices = new LinkedHashMap<>();
+        String sql = "SELECT INDEX_NAME, COLUMN_NAME FROM information_schema.STATISTICS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? ORDER BY INDEX_NAME, SEQ_IN_INDEX";
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, tabela);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    indices.computeIfAbsent(rs.getString(1), k -> new ArrayList<>())
+                            .add(rs.getString(2).toLowerCase());
+                }
+            }
+        }
+        return indices;
+    }
+
+    private void criarTabelaControle(Connection conn) throws SQLException {
+        executar(conn, "CREATE TABLE IF NOT EXISTS schema_migracoes (" +
+                "versao INT PRIMARY KEY, " +
+                "descricao VARCHAR(255) NOT NULL, " +
+                "aplicada_em TIMESTAMP DEFAULT CURRENT_TIMESTAMP" +
+                ") ENGINE=InnoDB DEFAULT CHARSET=utf8mb4");
+    }
+
+    private Set<Integer> listarVersoesAplicadas(Connection conn) throws SQLException {
+        Set<Integer> versoes = new HashSet<>();
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT versao FROM schema_migracoes")) {
+            while (rs.next()) {
+                versoes.add(rs.getInt(1));
+            }
+        }
+        return versoes;
+    }
+
+    private void registrarVersao(Connection conn, Migracao migracao) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement(
+                "INSERT INTO schema_migracoes (versao, descricao) VALUES (?, ?)")) {
+            stmt.setInt(1, migracao.versao);
+            stmt.setString(2, migracao.descricao);
+            stmt.executeUpdate();
+        }
+    }
+
+    private boolean obterLock(Connection conn) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT GET_LOCK(?, ?)")) {
+            stmt.setString(1, NOME_LOCK);
+            stmt.setInt(2, TIMEOUT_LOCK_SEGUNDOS);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    private void liberarLock(Connection conn) {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+            stmt.setString(1, NOME_LOCK);
+            stmt.executeQuery().close();
+        } catch (SQLException e) {
+            System.err.println("Erro ao liberar lock de migração: " + e.getMessage());
+        }
+    }
+
+    private static void executar(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    @FunctionalInterface
+    private interface PassoMigracao {
+        void aplicar(Connection conn) throws SQLException;
+    }
+
+    private static class Migracao {
+        private final int versao;
+        private final String descricao;
+        private final PassoMigracao passo;
+
+        Migracao(int versao, String descricao, PassoMigracao passo) {
+            this.versao = versao;
+            this.descricao = descricao;
+            this.passo = passo;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package dao;
+
+import model.Venda;
+import util.DBConnection;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Grava vendas em lotes JDBC usando uma única conexão e um único PreparedStatement.
+ * Cada lote de {@code tamanhoLote} linhas é enviado com executeBatch; a transação é confirmada
+ * a cada {@code intervaloCommit} linhas gravadas, ou só em {@link #finalizar()} quando o intervalo
+ * é zero (tudo ou nada). Chame {@link #finalizar()} para gravar o lote pendente;
+ * {@link #close()} desfaz o que não foi confirmado e devolve a conexão ao pool.
+ * <p>
+ * Com {@code isolarFalhas}, um lote que falha é desfeito até o savepoint anterior a ele e
+ * reenviado linha a linha, cada uma com seu próprio savepoint: as linhas recusadas pelo banco
+ * ficam em {@link #getFalhas()} e as demais seguem na mesma transação.
+ * <p>
+ * Com um consumidor {@code aoConfirmar}, as vendas de cada commit são entregues a ele e descartadas em seguida,
+ * então a memória do writer não cresce com o tamanho da importação; sem ele, os ids confirmados
+ * são acumulados e devolvidos por {@link #finalizar()}.
+ */
+public class VendaBatchWriter implements AutoCloseable {
+
+    private final Connection conn;
+    private final PreparedStatement stmt;
+    private final int tamanhoLote;
+    private final int intervaloCommit;
+    private final boolean isolarFalhas;
+    private final Consumer<List<Venda>> aoConfirmar;
+
+    private final List<Integer> idsGerados = new ArrayList<>();
+    private final List<Venda> pendentes = new ArrayList<>();
+    private final List<Integer> linhasPendentes = new ArrayList<>();
+    // Gravadas na transação corrente, ainda não confirmadas
+    private final List<Venda> naoConfirmadas = new ArrayList<>();
+    private final List<Falha> falhas = new ArrayList<>();
+    private int totalGravadas = 0;
+
+    public VendaBatchWriter(int tamanhoLote) throws SQLException {
+        this(tamanhoLote, tamanhoLote, false, null);
+    }
+
+    /**
+     * @param tamanhoLote linhas por executeBatch
+     * @param intervaloCommit linhas gravadas entre commits; 0 para uma única transação confirmada em finalizar()
+     * @param isolarFalhas true para registrar as linhas recusadas pelo banco em vez de abortar
+     * @param aoConfirmar recebe, após cada commit, as vendas confirmadas nele (com ids); null para acumular os ids
+     */
+    public VendaBatchWriter(int tamanhoLote, int intervaloCommit, boolean isolarFalhas,
+                            Consumer<List<Venda>> aoConfirmar) throws SQLException {
+        if (tamanhoLote <= 0) {
+            throw new IllegalArgumentException("Tamanho do lote deve ser maior que zero");
+        }
+        if (intervaloCommit < 0) {
+            throw new IllegalArgumentException("Intervalo de commit não pode ser negativo");
+        }
+        this.tamanhoLote = tamanhoLote;
+        this.intervaloCommit = intervaloCommit;
+        this.isolarFalhas = isolarFalhas;
+        this.aoConfirmar = aoConfirmar;
+        this.conn = DBConnection.getConnection();
+        try {
+            conn.setAutoCommit(false);
+            this.stmt = conn.prepareStatement(VendaDAO.SQL_INSERT, Statement.RETURN_GENERATED_KEYS);
+        } catch (SQLException e) {
+            conn.close();
+            throw e;
+        }
+    }
+
+    public void adicionar(Venda venda) throws SQLException {
+        adicionar(venda, 0);
+    }
+
+    /**
+     * @param linha linha de origem (ex.: no arquivo importado), devolvida em {@link Falha}
+     */
+    public void adicionar(Venda venda, int linha) throws SQLException {
+        preencher(venda);
+        stmt.addBatch();
+        pendentes.add(venda);
+        linhasPendentes.add(linha);
+
+        if (pendentes.size() >= tamanhoLote) {
+            gravarLote();
+        }
+    }
+
+    /**
+     * Envia o lote pendente, confirmando a transação se o intervalo de commit foi atingido
+     * @return quantidade de vendas gravadas neste lote
+     */
+    public int gravarLote() throws SQLException {
+        if (pendentes.isEmpty()) {
+            return 0;
+        }
+        Savepoint antesDoLote = isolarFalhas ? conn.setSavepoint() : null;
+        int gravadas;
+        try {
+            stmt.executeBatch();
+            List<Integer> ids = lerIdsGerados();
+            for (int i = 0; i < pendentes.size(); i++) {
+                registrarGravada(pendentes.get(i), ids.get(i));
+            }
+            gravadas = pendentes.size();
+        } catch (SQLException e) {
+            stmt.clearBatch();
+            if (!isolarFalhas) {
+                descartarNaoConfirmadas();
+                limparPendentes();
+                throw e;
+            }
+            conn.rollback(antesDoLote);
+            gravadas = gravarLinhaALinha();
+        }
+        if (antesDoLote != null) {
+            conn.releaseSavepoint(antesDoLote);
+        }
+        limparPendentes();
+
+        if (intervaloCommit > 0 && naoConfirmadas.size() >= intervaloCommit) {
+            confirmar();
+        }
+        return gravadas;
+    }
+
+    /**
+     * Grava o lote pendente e confirma a transação
+     * @return ids gerados para todas as vendas gravadas por este writer; vazia com {@code aoConfirmar}
+     */
+    public List<Integer> finalizar() throws SQLException {
+        gravarLote();
+        confirmar();
+        return getIdsGerados();
+    }
+
+    /**
+     * Desfaz tudo o que ainda não foi confirmado (no modo tudo ou nada, a importação inteira)
+     */
+    public void descartar() throws SQLException {
+        stmt.clearBatch();
+        limparPendentes();
+        descartarNaoConfirmadas();
+    }
+
+    private int gravarLinhaALinha() throws SQLException {
+        int gravadas = 0;
+        for (int i = 0; i < pendentes.size(); i++) {
+            Venda venda = pendentes.get(i);
+            Savepoint antesDaLinha = conn.setSavepoint();
+            try {
+                preencher(venda);
+                stmt.executeUpdate();
+                registrarGravada(venda, lerIdsGerados().get(0));
+                conn.releaseSavepoint(antesDaLinha);
+                gravadas++;
+            } catch (SQLException e) {
+                conn.rollback(antesDaLinha);
+                falhas.add(new Falha(linhasPendentes.get(i), venda, e.getMessage()));
+            }
+        }
+        return gravadas;
+    }
+
+    private void preencher(Venda venda) throws SQLException {
+        stmt.setString(1, venda.getProduto());
+        stmt.setInt(2, venda.getQuantidade());
+        stmt.setDouble(3, venda.getValorUnitario());
+        stmt.setDate(4, venda.getData());
+    }
+
+    private List<Integer> lerIdsGerados() throws SQLException {
+        List<Integer> ids = new ArrayList<>();
+        try (ResultSet keys = stmt.getGeneratedKeys()) {
+            while (keys.next()) {
+                ids.add(keys.getInt(1));
+            }
+        }
+        return ids;
+    }
+
+    private void registrarGravada(Venda venda, int id) {
+        naoConfirmadas.add(new Venda(id, venda.getProduto(), venda.getQuantidade(),
+                venda.getValorUnitario(), venda.getData()));
+    }
+
+    private void confirmar() throws SQLException {
+        if (naoConfirmadas.isEmpty()) {
+            return;
+        }
+        conn.commit();
+        totalGravadas += naoConfirmadas.size();
+        if (aoConfirmar != null) {
+            List<Venda> confirmadas = new ArrayList<>(naoConfirmadas);
+            naoConfirmadas.clear();
+            aoConfirmar.accept(confirmadas);
+            return;
+        }
+        for (Venda venda : naoConfirmadas) {
+            idsGerados.add(venda.getId());
+        }
+        naoConfirmadas.clear();
+    }
+
+    private void descartarNaoConfirmadas() throws SQLException {
+        naoConfirmadas.clear();
+        conn.rollback();
+    }
+
+    private void limparPendentes() {
+        pendentes.clear();
+        linhasPendentes.clear();
+    }
+
+    /**
+     * @return ids das vendas já confirmadas no banco (só sem {@code aoConfirmar})
+     */
+    public List<Integer> getIdsGerados() { return new ArrayList<>(idsGerados); }
+
+    public List<Falha> getFalhas() { return new ArrayList<>(falhas); }
+    public int getTotalGravadas() { return totalGravadas; }
+    public int getPendentes() { return pendentes.size() + naoConfirmadas.size(); }
+
+    @Override
+    public void close() throws SQLException {
+        try {
+            if (!naoConfirmadas.isEmpty() || !pendentes.isEmpty()) {
+                descartar();
+            }
+            stmt.close();
+        } finally {
+            conn.close();
+        }
+    }
+
+    /**
+     * Linha recusada pelo banco quando o writer isola falhas
+     */
+    public static class Falha {
+        private final int linha;
+        private final Venda venda;
+        private final String mensagem;
+
+        Falha(int linha, Venda venda, String mensagem) {
+            this.linha = linha;
+            this.venda = venda;
+            this.mensagem = mensagem;
+        }
+
+        public int getLinha() { return linha; }
+        public Venda getVenda() { return venda; }
+        public String getMensagem() { return mensagem; }
+    }
+}
@@ -0,0 +1,24 @@
+package dao;
+
+import java.sql.SQLException;
+
+/**
+ * Indica que a venda foi alterada ou removida por outro cliente depois de ter sido lida
+ * (a versão informada não corresponde mais à versão gravada no banco).
+ */
+public class VendaConcorrenciaException extends SQLException {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final String SQL_STATE_CONFLITO = "40001";
+
+    private final int idVenda;
+
+    public VendaConcorrenciaException(int idVenda, int versaoEsperada) {
+        super("A venda " + idVenda + " foi alterada por outro usuário (versão " + versaoEsperada +
+                " desatualizada). Recarregue os dados e tente novamente.", SQL_STATE_CONFLITO);
+        this.idVenda = idVenda;
+    }
+
+    public int getIdVenda() { return idVenda; }
+}
@@ -1,25 +1,88 @@
 package dao;
 
+import model.AgregadoVendas;
+import model.DashboardSummary;
+import model.ProdutoDicionario;
 import model.Venda;
+import model.VendaStore;
+import model.VersaoDados;
+import util.AppConfig;
 import util.DBConnection;
 
 import java.sql.*;
+import java.time.LocalDate;
 import java.util.*;
+import java.util.function.Consumer;
 
 public class VendaDAO {
 
-    public void inserirVenda(Venda venda) throws SQLException {
-        String sql = "INSERT INTO vendas (produto, quantidade, valor_unitario, data_venda) VALUES (?, ?, ?, ?)";
+    static final String SQL_INSERT = "INSERT INTO vendas (produto, quantidade, valor_unitario, data_venda) VALUES (?, ?, ?, ?)";
+
+    private static final int TAMANHO_LOTE_PADRAO = AppConfig.getInt("DB_BATCH_SIZE", 1000);
+    private static final boolean BUSCA_FULLTEXT = AppConfig.getBoolean("DB_FULLTEXT_SEARCH", false);
+    // TO_DAYS('1970-01-01'): converte TO_DAYS do MySQL para LocalDate.toEpochDay()
+    private static final int TO_DAYS_EPOCH = 719528;
+    private static final int ERRO_SEM_INDICE_FULLTEXT = 1191;
+    private static final int TAMANHO_MINIMO_TOKEN_FULLTEXT = 3;
+
+    private final ProdutoDicionario produtos = ProdutoDicionario.getInstancia();
+
+    /**
+     * Insere a venda
+     * @return id gerado pelo banco
+     */
+    public int inserirVenda(Venda venda) throws SQLException {
         try (Connection conn = DBConnection.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+             PreparedStatement stmt = conn.prepareStatement(SQL_INSERT, Statement.RETURN_GENERATED_KEYS)) {
             stmt.setString(1, venda.getProduto());
             stmt.setInt(2, venda.getQuantidade());
             stmt.setDouble(3, venda.getValorUnitario());
             stmt.setDate(4, venda.getData());
             stmt.executeUpdate();
+            try (ResultSet keys = stmt.getGeneratedKeys()) {
+                return keys.next() ? keys.getInt(1) : 0;
+            }
+        }
+    }
+
+    /**
+     * Insere as vendas em lotes (tamanho DB_BATCH_SIZE), com um commit por lote
+     * @return ids gerados, na mesma ordem das vendas
+     */
+    public List<Integer> inserirVendas(List<Venda> vendas) throws SQLException {
+        return inserirVendas(vendas, TAMANHO_LOTE_PADRAO);
+    }
+
+    /**
+     * Insere as vendas reutilizando uma conexão e um PreparedStatement.
+     * Lotes já confirmados permanecem gravados se um lote posterior falhar.
+     * @param vendas fonte das vendas, consumida uma única vez
+     * @param tamanhoLote quantidade de linhas por executeBatch/commit
+     * @return ids gerados, na mesma ordem das vendas
+     */
+    public List<Integer> inserirVendas(Iterable<Venda> vendas, int tamanhoLote) throws SQLException {
+        try (VendaBatchWriter writer = new VendaBatchWriter(tamanhoLote)) {
+            for (Venda venda : vendas) {
+                writer.adicionar(venda);
+            }
+            return writer.finalizar();
         }
     }
 
+    public VendaBatchWriter abrirLote(int tamanhoLote) throws SQLException {
+        return new VendaBatchWriter(tamanhoLote);
+    }
+
+    /**
+     * @param intervaloCommit linhas entre commits; 0 para uma única transação (tudo ou nada)
+     * @param isolarFalhas true para registrar as linhas recusadas pelo banco em vez de abortar
+     * @param aoConfirmar recebe as vendas de cada commit; null para acumular os ids no writer
+     */
+    public VendaBatchWriter abrirLote(int tamanhoLote, int intervaloCommit, boolean isolarFalhas,
+                                      Consumer<List<Venda>> aoConfirmar) throws SQLException {
+        return new VendaBatchWriter(tamanhoLote, intervaloCommit, isolarFalhas, aoConfirmar);
+    }
+
     public List<Venda> listarVendas() throws SQLException {
         List<Venda> lista = new ArrayList<>();
         String sql = "SELECT * FROM vendas ORDER BY id DESC";
@@ -27,19 +90,135 @@ public class VendaDAO {
              Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
             while (rs.next()) {
-                Venda venda = new Venda(
-                        rs.getInt("id"),
-                        rs.getString("produto"),
-                        rs.getInt("quantidade"),
-                        rs.getDouble("valor_unitario"),
-                        rs.getDate("data_venda")
-                );
-                lista.add(venda);
+                lista.add(mapearVenda(rs));
+            }
+        }
+        return lista;
+    }
+
+    /**
+     * Lista uma página de vendas em ordem decrescente de id usando paginação por chave
+     * (WHERE id < ?), que percorre apenas o índice primário da página pedida.
+     * @param aposId id da última venda da página anterior (0 para a primeira página)
+     * @param limite tamanho máximo da página
+     */
+    public List<Venda> listarVendas(int aposId, int limite) throws SQLException {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("Limite deve ser maior que zero");
+        }
+        List<Venda> lista = new ArrayList<>(Math.min(limite, 1024));
+        String sql = "SELECT * FROM vendas WHERE id < ? ORDER BY id DESC LIMIT ?";
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, aposId > 0 ? aposId : Integer.MAX_VALUE);
+            stmt.setInt(2, limite);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    lista.add(mapearVenda(rs));
+                }
             }
         }
         return lista;
     }
 
+    /**
+     * Percorre todas as vendas (id decrescente) em modo streaming do driver,
+     * entregando uma linha por vez ao consumidor sem materializar a tabela.
+     * O consumidor não deve reutilizar a mesma conexão; outras chamadas ao DAO usam o pool normalmente.
+     * @return quantidade de vendas entregues
+     */
+    public int percorrerVendas(Consumer<Venda> consumidor) throws SQLException {
+        String sql = "SELECT * FROM vendas ORDER BY id DESC";
+        int total = 0;
+        try (Connection conn = DBConnection.getConnection();
+             Statement stmt = conn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            // Integer.MIN_VALUE ativa o streaming linha a linha do MySQL Connector/J
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            try (ResultSet rs = stmt.executeQuery(sql)) {
+                while (rs.next()) {
+                    consumidor.accept(mapearVenda(rs));
+                    total++;
+                }
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Carrega as vendas em ordem crescente de id direto para um VendaStore colunar, em streaming.
+     * Centavos e dias desde 1970-01-01 são calculados pelo MySQL, então nenhuma linha gera Date ou BigDecimal.
+     * @param desde primeira data incluída, ou null para todo o histórico
+     */
+    public VendaStore carregarStore(LocalDate desde) throws SQLException {
+        String sql = "SELECT id, produto, quantidade, ROUND(valor_unitario * 100) AS centavos, " +
+                "TO_DAYS(data_venda) - " + TO_DAYS_EPOCH + " AS dia, versao FROM vendas" +
+                (desde != null ? " WHERE data_venda >= ?" : "") + " ORDER BY id";
+        VendaStore store = new VendaStore();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            stmt.setFetchSize(Integer.MIN_VALUE);
+            if (desde != null) {
+                stmt.setDate(1, java.sql.Date.valueOf(desde));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    store.adicionar(rs.getInt(1), rs.getString(2), rs.getInt(3), rs.getLong(4), rs.getInt(5), rs.getInt(6));
+                }
+            }
+        }
+        return store;
+    }
+
+    /**
+     * Agrega as vendas no próprio MySQL em uma única consulta: totais por dia desde inicioDias e,
+     * desde inicioHistorico, por dia da semana e por produto. Devolve poucas linhas mesmo com
+     * históricos grandes, em vez de trazer a tabela inteira para a JVM.
+     * @param inicioDias primeira data dos totais diários, ou null para todo o histórico
+     * @param inicioHistorico primeira data dos totais por dia da semana e produto, ou null para todo o histórico
+     */
+    public List<AgregadoVendas> obterAgregadosAnalytics(LocalDate inicioDias, LocalDate inicioHistorico)
+            throws SQLException {
+        String totais = "COUNT(*) AS vendas, SUM(quantidade) AS quantidade, " +
+                "SUM(quantidade * ROUND(valor_unitario * 100)) AS centavos";
+        String filtroDias = inicioDias != null ? " WHERE data_venda >= ?" : "";
+        String filtroHistorico = inicioHistorico != null ? " WHERE data_venda >= ?" : "";
+        String sql = "SELECT 'D' AS dimensao, TO_DAYS(data_venda) - " + TO_DAYS_EPOCH + " AS chave, NULL AS produto, " +
+                totais + " FROM vendas" + filtroDias + " GROUP BY data_venda " +
+                "UNION ALL SELECT 'S', WEEKDAY(data_venda), NULL, " +
+                totais + " FROM vendas" + filtroHistorico + " GROUP BY WEEKDAY(data_venda) " +
+                // Agrupa pelos bytes: a collation da coluna juntaria "Café" e "cafe", que o caminho em memória
+                // (ProdutoDicionario) mantém separados. Dentro do grupo os nomes são idênticos, então MIN devolve o nome
+                "UNION ALL SELECT 'P', 0, MIN(produto), " +
+                totais + " FROM vendas" + filtroHistorico + " GROUP BY CAST(produto AS BINARY)";
+
+        List<AgregadoVendas> agregados = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            int parametro = 1;
+            if (inicioDias != null) {
+                stmt.setDate(parametro++, java.sql.Date.valueOf(inicioDias));
+            }
+            if (inicioHistorico != null) {
+                stmt.setDate(parametro++, java.sql.Date.valueOf(inicioHistorico));
+                stmt.setDate(parametro, java.sql.Date.valueOf(inicioHistorico));
+            }
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    AgregadoVendas.Dimensao dimensao;
+                    switch (rs.getString("dimensao")) {
+                        case "D": dimensao = AgregadoVendas.Dimensao.DIA; break;
+                        case "S": dimensao = AgregadoVendas.Dimensao.DIA_SEMANA; break;
+                        default: dimensao = AgregadoVendas.Dimensao.PRODUTO; break;
+                    }
+                    agregados.add(new AgregadoVendas(dimensao, rs.getInt("chave"),
+                            produtos.canonico(rs.getString("produto")), rs.getInt("vendas"),
+                            rs.getLong("quantidade"), rs.getLong("centavos")));
+                }
+            }
+        }
+        return agregados;
+    }
+
     public Venda buscarVendaPorId(int id) throws SQLException {
         String sql = "SELECT * FROM vendas WHERE id = ?";
         try (Connection conn = DBConnection.getConnection();
@@ -47,31 +226,32 @@ public class VendaDAO {
             stmt.setInt(1, id);
             try (ResultSet rs = stmt.executeQuery()) {
                 if (rs.next()) {
-                    return new Venda(
-                            rs.getInt("id"),
-                            rs.getString("produto"),
-                            rs.getInt("quantidade"),
-                            rs.getDouble("valor_unitario"),
-                            rs.getDate("data_venda")
-                    );
+                    return mapearVenda(rs);
                 }
             }
         }
         return null;
     }
 
+    /**
+     * Atualiza a venda em um único UPDATE condicionado à versão lida (controle otimista).
+     * Só em caso de falha uma segunda consulta distingue venda inexistente de conflito.
+     * @throws VendaConcorrenciaException se outro cliente alterou a venda depois da leitura
+     */
     public void atualizarVenda(Venda venda) throws SQLException {
-        String sql = "UPDATE vendas SET produto = ?, quantidade = ?, valor_unitario = ? WHERE id = ?";
+        String sql = "UPDATE vendas SET produto = ?, quantidade = ?, valor_unitario = ?, versao = versao + 1 " +
+                "WHERE id = ? AND versao = ?";
         try (Connection conn = DBConnection.getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, venda.getProduto());
             stmt.setInt(2, venda.getQuantidade());
             stmt.setDouble(3, venda.getValorUnitario());
             stmt.setInt(4, venda.getId());
+            stmt.setInt(5, venda.getVersao());
 
             int linhasAfetadas = stmt.executeUpdate();
             if (linhasAfetadas == 0) {
-                throw new SQLException("Nenhuma venda encontrada com o ID: " + venda.getId());
+                verificarFalhaConcorrencia(conn, venda.getId(), venda.getVersao());
             }
         }
     }
@@ -84,9 +264,39 @@ public class VendaDAO {
 
             int linhasAfetadas = stmt.executeUpdate();
             if (linhasAfetadas == 0) {
-                throw new SQLException("Nenhuma venda encontrada com o ID: " + id);
+                throw new SQLException("Venda com ID " + id + " não encontrada");
+            }
+        }
+    }
+
+    /**
+     * Remove a venda apenas se ela ainda estiver na versão lida
+     * @throws VendaConcorrenciaException se outro cliente alterou a venda depois da leitura
+     */
+    public void deletarVenda(int id, int versao) throws SQLException {
+        String sql = "DELETE FROM vendas WHERE id = ? AND versao = ?";
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setInt(1, id);
+            stmt.setInt(2, versao);
+
+            int linhasAfetadas = stmt.executeUpdate();
+            if (linhasAfetadas == 0) {
+                verificarFalhaConcorrencia(conn, id, versao);
+            }
+        }
+    }
+
+    private void verificarFalhaConcorrencia(Connection conn, int id, int versao) throws SQLException {
+        try (PreparedStatement stmt = conn.prepareStatement("SELECT versao FROM vendas WHERE id = ?")) {
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (!rs.next()) {
+                    throw new SQLException("Venda com ID " + id + " não encontrada");
+                }
             }
         }
+        throw new VendaConcorrenciaException(id, versao);
     }
 
     public Map<String, Integer> produtoMaisVendido() throws SQLException {
@@ -138,4 +348,136 @@ public class VendaDAO {
         }
         return 0.0;
     }
+
+    /**
+     * Busca vendas cujo produto começa com o prefixo informado.
+     * O LIKE 'prefixo%' é resolvido como faixa no índice de produto.
+     */
+    public List<Venda> buscarVendasPorPrefixo(String prefixo, int limite) throws SQLException {
+        String sql = "SELECT * FROM vendas WHERE produto LIKE ? ESCAPE '!' ORDER BY produto LIMIT ?";
+        return buscarVendas(sql, escaparLike(prefixo) + "%", limite);
+    }
+
+    /**
+     * Busca vendas pelo termo no nome do produto. A semântica depende do modo:
+     * <ul>
+     * <li>DB_FULLTEXT_SEARCH=true: índice FULLTEXT (MATCH ... AGAINST em modo booleano, +palavra* para cada
+     * palavra do termo). Acha produtos com alguma palavra que <em>começa</em> com cada palavra do termo:
+     * "note" acha "Dell Notebook", mas "book" não acha "Notebook". Palavras menores que o token mínimo do
+     * índice fazem a busca cair no LIKE.</li>
+     * <li>Caso contrário, ou se o índice não existir: LIKE '%termo%', qualquer trecho, com varredura da tabela.</li>
+     * </ul>
+     * @param limite máximo de vendas devolvidas; peça uma a mais para saber se houve corte
+     */
+    public List<Venda> buscarVendasPorTexto(String termo, int limite) throws SQLException {
+        String consultaFullText = BUSCA_FULLTEXT ? montarConsultaFullText(termo) : null;
+        if (consultaFullText != null) {
+            String sql = "SELECT * FROM vendas WHERE MATCH(produto) AGAINST (? IN BOOLEAN MODE) LIMIT ?";
+            try {
+                return buscarVendas(sql, consultaFullText, limite);
+            } catch (SQLException e) {
+                if (e.getErrorCode() != ERRO_SEM_INDICE_FULLTEXT) {
+                    throw e;
+                }
+                System.err.println("Índice FULLTEXT de produto não encontrado, usando LIKE: " + e.getMessage());
+            }
+        }
+        String sql = "SELECT * FROM vendas WHERE produto LIKE ? ESCAPE '!' LIMIT ?";
+        return buscarVendas(sql, "%" + escaparLike(termo) + "%", limite);
+    }
+
+    private List<Venda> buscarVendas(String sql, String parametro, int limite) throws SQLException {
+        if (limite <= 0) {
+            throw new IllegalArgumentException("Limite deve ser maior que zero");
+        }
+        List<Venda> lista = new ArrayList<>();
+        try (Connection conn = DBConnection.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, parametro);
+            stmt.setInt(2, limite);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    lista.add(mapearVenda(rs));
+                }
+            }
+        }
+        return lista;
+    }
+
+    private String escaparLike(String texto) {
+        return texto.replace("!", "!!").replace("%", "!%").replace("_", "!_");
+    }
+
+    /**
+     * Converte o termo em uma consulta booleana (+palavra* para cada palavra): todas as palavras são
+     * obrigatórias e cada uma casa só com o início de uma palavra do produto, nunca com o meio dela.
+     * Retorna null se alguma palavra for menor que o token mínimo do índice FULLTEXT.
+     */
+    private String montarConsultaFullText(String termo) {
+        StringBuilder consulta = new StringBuilder();
+        for (String palavra : termo.trim().split("\\s+")) {
+            String limpa = palavra.replaceAll("[+\\-<>()~*\"@]", "");
+            if (limpa.length() < TAMANHO_MINIMO_TOKEN_FULLTEXT) {
+                return null;
+            }
+            consulta.append('+').append(limpa).append("* ");
+        }
+        return consulta.length() == 0 ? null : consulta.toString().trim();
+    }
+
+    /**
+     * Lê o contador de alterações mantido pelos triggers de vendas (migração V5): uma busca por chave
+     * primária, usada para validar caches sem reler nem varrer as vendas
+     */
+    public VersaoDados obterVersaoDados() throws SQLException {
+        String sql = "SELECT versao FROM vendas_versao WHERE id = 1";
+        try (Connection conn = DBConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            if (rs.next()) {
+                return new VersaoDados(rs.getLong("versao"));
+            }
+        }
+        return new VersaoDados(0);
+    }
+
+    /**
+     * Obtém contagem, faturamento, intervalo de datas e produto mais vendido
+     * em uma única consulta (uma conexão, um round trip)
+     */
+    public DashboardSummary obterResumoDashboard() throws SQLException {
+        String sql = "SELECT r.total_vendas, r.faturamento, r.primeira_venda, r.ultima_venda, " +
+                "p.produto, p.total_quantidade " +
+                "FROM (SELECT COUNT(*) AS total_vendas, " +
+                "COALESCE(SUM(quantidade * valor_unitario), 0) AS faturamento, " +
+                "MIN(data_venda) AS primeira_venda, MAX(data_venda) AS ultima_venda FROM vendas) r " +
+                "LEFT JOIN (SELECT produto, SUM(quantidade) AS total_quantidade FROM vendas " +
+                "GROUP BY produto ORDER BY total_quantidade DESC LIMIT 1) p ON 1 = 1";
+        try (Connection conn = DBConnection.getConnection();
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(sql)) {
+            if (rs.next()) {
+                return new DashboardSummary(
+                        rs.getInt("total_vendas"),
+                        rs.getDouble("faturamento"),
+                        produtos.canonico(rs.getString("produto")),
+                        rs.getInt("total_quantidade"),
+                        rs.getDate("primeira_venda"),
+                        rs.getDate("ultima_venda")
+                );
+            }
+        }
+        return new DashboardSummary(0, 0.0, null, 0, null, null);
+    }
+
+    private Venda mapearVenda(ResultSet rs) throws SQLException {
+        return new Venda(
+                rs.getInt("id"),
+                produtos.canonico(rs.getString("produto")),
+                rs.getInt("quantidade"),
+                rs.getDouble("valor_unitario"),
+                rs.getDate("data_venda"),
+                rs.getInt("versao")
+        );
+    }
 }
\ No newline at end of file
@@ -0,0 +1,105 @@
+package listener;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Alterações de vendas agrupadas pelo VendaEventBus. Um evento pode reunir várias
+ * publicações: ids inseridos e depois removidos na mesma janela não aparecem em nenhum conjunto.
+ * <p>
+ * Um evento {@link #isMassivo() massivo} (ex.: importação grande) não traz os ids, só as
+ * contagens por tipo e a faixa de ids alterados.
+ */
+public class VendaEvent {
+
+    public enum Tipo {
+        INSERCAO,
+        ATUALIZACAO,
+        REMOCAO,
+        IMPORTACAO
+    }
+
+    private final Set<Tipo> tipos;
+    private final Set<Integer> idsInseridos;
+    private final Set<Integer> idsAtualizados;
+    private final Set<Integer> idsRemovidos;
+    private final int totalInseridas;
+    private final int totalAtualizadas;
+    private final int totalRemovidas;
+    private final int menorId;
+    private final int maiorId;
+    private final boolean massivo;
+    private final String origemImportacao;
+    private final int publicacoesAgrupadas;
+
+    /**
+     * @param massivo true quando os conjuntos de ids vêm vazios e só as contagens valem
+     */
+    VendaEvent(Set<Integer> idsInseridos, Set<Integer> idsAtualizados, Set<Integer> idsRemovidos,
+               int totalInseridas, int totalAtualizadas, int totalRemovidas, int menorId, int maiorId,
+               boolean massivo, String origemImportacao, int publicacoesAgrupadas) {
+        this.idsInseridos = Collections.unmodifiableSet(idsInseridos);
+        this.idsAtualizados = Collections.unmodifiableSet(idsAtualizados);
+        this.idsRemovidos = Collections.unmodifiableSet(idsRemovidos);
+        this.totalInseridas = totalInseridas;
+        this.totalAtualizadas = totalAtualizadas;
+        this.totalRemovidas = totalRemovidas;
+        this.menorId = menorId;
+        this.maiorId = maiorId;
+        this.massivo = massivo;
+        this.origemImportacao = origemImportacao;
+        this.publicacoesAgrupadas = publicacoesAgrupadas;
+
+        EnumSet<Tipo> presentes = EnumSet.noneOf(Tipo.class);
+        if (totalInseridas > 0) presentes.add(Tipo.INSERCAO);
+        if (totalAtualizadas > 0) presentes.add(Tipo.ATUALIZACAO);
+        if (totalRemovidas > 0) presentes.add(Tipo.REMOCAO);
+        if (origemImportacao != null) presentes.add(Tipo.IMPORTACAO);
+        this.tipos = Collections.unmodifiableSet(presentes);
+    }
+
+    public Set<Tipo> getTipos() { return tipos; }
+
+    /**
+     * @return ids inseridos; vazio se o evento for massivo
+     */
+    public Set<Integer> getIdsInseridos() { return idsInseridos; }
+    public Set<Integer> getIdsAtualizados() { return idsAtualizados; }
+    public Set<Integer> getIdsRemovidos() { return idsRemovidos; }
+    public int getTotalInseridas() { return totalInseridas; }
+    public int getTotalAtualizadas() { return totalAtualizadas; }
+    public int getTotalRemovidas() { return totalRemovidas; }
+
+    /**
+     * @return menor id publicado na janela, ou Integer.MAX_VALUE se nenhum
+     */
+    public int getMenorId() { return menorId; }
+    public int getMaiorId() { return maiorId; }
+    public boolean isMassivo() { return massivo; }
+    public String getOrigemImportacao() { return origemImportacao; }
+    public int getPublicacoesAgrupadas() { return publicacoesAgrupadas; }
+
+    public boolean contem(Tipo tipo) {
+        return tipos.contains(tipo);
+    }
+
+    public boolean isImportacao() {
+        return origemImportacao != null;
+    }
+
+    /**
+     * @return true se alguma venda foi inserida, atualizada ou removida
+     */
+    public boolean alterouDados() {
+        return totalInseridas > 0 || totalAtualizadas > 0 || totalRemovidas > 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("VendaEvent[%s, %d inseridas, %d atualizadas, %d removidas, %d publicações%s%s]",
+                tipos, totalInseridas, totalAtualizadas, totalRemovidas, publicacoesAgrupadas,
+                massivo ? ", massivo" : "",
+                origemImportacao != null ? ", importação " + origemImportacao : "");
+    }
+}
@@ -0,0 +1,223 @@
+package listener;
+
+import util.AppConfig;
+
+import javax.swing.SwingUtilities;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Barramento de alterações de vendas. As publicações são acumuladas e entregues
+ * de uma só vez após a janela VENDA_EVENTOS_JANELA_MS, na EDT, a todos os listeners registrados.
+ * Enquanto houver um {@link Lote} aberto (ex.: importação) nada é entregue; ao fechar o último
+ * lote as alterações acumuladas seguem como um único evento de importação.
+ * <p>
+ * Os ids alterados só são guardados até VENDA_EVENTOS_MAXIMO_IDS; acima disso o evento passa a ser
+ * massivo e guarda apenas as contagens por tipo e a faixa de ids, para que uma importação grande
+ * não acumule um id por linha na memória.
+ */
+public class VendaEventBus {
+
+    private static final long JANELA_MS = AppConfig.getLong("VENDA_EVENTOS_JANELA_MS", 250);
+
+    private static final int MAXIMO_IDS = AppConfig.getInt("VENDA_EVENTOS_MAXIMO_IDS", 1000);
+
+    private static final VendaEventBus INSTANCIA = new VendaEventBus(JANELA_MS, MAXIMO_IDS);
+
+    private final long janelaMs;
+    private final int maximoIds;
+    private final CopyOnWriteArrayList<VendaListener> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService agendador;
+
+    private Set<Integer> inseridos = new LinkedHashSet<>();
+    private Set<Integer> atualizados = new LinkedHashSet<>();
+    private Set<Integer> removidos = new LinkedHashSet<>();
+    // Contagens usadas quando o evento é massivo; antes disso valem os tamanhos dos conjuntos
+    private boolean massivo = false;
+    private int totalInseridos = 0;
+    private int totalAtualizados = 0;
+    private int totalRemovidos = 0;
+    private int menorId = Integer.MAX_VALUE;
+    private int maiorId = Integer.MIN_VALUE;
+    private String origemImportacao;
+    private int publicacoes = 0;
+    private int lotesAbertos = 0;
+    private boolean entregaAgendada = false;
+
+    VendaEventBus(long janelaMs, int maximoIds) {
+        this.janelaMs = Math.max(0, janelaMs);
+        this.maximoIds = Math.max(0, maximoIds);
+        this.agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "vendas-eventos");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public static VendaEventBus getInstancia() {
+        return INSTANCIA;
+    }
+
+    public void registrar(VendaListener listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public void remover(VendaListener listener) {
+        listeners.remove(listener);
+    }
+
+    public synchronized void publicarInsercao(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        for (int id : ids) {
+            abrangerId(id);
+        }
+        if (massivo) {
+            totalInseridos += ids.size();
+        } else {
+            inseridos.addAll(ids);
+            limitarIds();
+        }
+        registrarPublicacao();
+    }
+
+    public synchronized void publicarAtualizacao(int id) {
+        abrangerId(id);
+        if (massivo) {
+            totalAtualizados++;
+        } else if (!inseridos.contains(id)) {
+            // Uma venda inserida na mesma janela continua sendo apenas uma inserção
+            atualizados.add(id);
+            limitarIds();
+        }
+        registrarPublicacao();
+    }
+
+    public synchronized void publicarRemocao(int id) {
+        abrangerId(id);
+        if (massivo) {
+            totalRemovidos++;
+        } else {
+            atualizados.remove(id);
+            if (!inseridos.remove(id)) {
+                removidos.add(id);
+                limitarIds();
+            }
+        }
+        registrarPublicacao();
+    }
+
+    private void abrangerId(int id) {
+        menorId = Math.min(menorId, id);
+        maiorId = Math.max(maiorId, id);
+    }
+
+    /**
+     * Passado o limite, troca os conjuntos de ids pelas contagens. A partir daí uma venda inserida
+     * e removida na mesma janela conta nos dois tipos, em vez de se anular.
+     */
+    private void limitarIds() {
+        if (inseridos.size() + atualizados.size() + removidos.size() <= maximoIds) {
+            return;
+        }
+        massivo = true;
+        totalInseridos = inseridos.size();
+        totalAtualizados = atualizados.size();
+        totalRemovidos = removidos.size();
+        inseridos = new LinkedHashSet<>();
+        atualizados = new LinkedHashSet<>();
+        removidos = new LinkedHashSet<>();
+    }
+
+    /**
+     * Suspende as entregas até o lote ser fechado
+     * @param origem descrição da importação (ex.: "CSV")
+     */
+    public synchronized Lote abrirLote(String origem) {
+        lotesAbertos++;
+        origemImportacao = origem;
+        return new Lote();
+    }
+
+    private synchronized void fecharLote() {
+        lotesAbertos--;
+        if (lotesAbertos > 0) {
+            return;
+        }
+        if (publicacoes > 0) {
+            agendarEntrega();
+        } else {
+            origemImportacao = null;
+        }
+    }
+
+    private void registrarPublicacao() {
+        publicacoes++;
+        if (lotesAbertos == 0) {
+            agendarEntrega();
+        }
+    }
+
+    private void agendarEntrega() {
+        if (!entregaAgendada) {
+            entregaAgendada = true;
+            agendador.schedule(this::entregar, janelaMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void entregar() {
+        VendaEvent evento;
+        synchronized (this) {
+            entregaAgendada = false;
+            if (lotesAbertos > 0 || publicacoes == 0) {
+                return;
+            }
+            if (!massivo) {
+                totalInseridos = inseridos.size();
+                totalAtualizados = atualizados.size();
+                totalRemovidos = removidos.size();
+            }
+            evento = new VendaEvent(inseridos, atualizados, removidos, totalInseridos, totalAtualizados,
+                    totalRemovidos, menorId, maiorId, massivo, origemImportacao, publicacoes);
+            inseridos = new LinkedHashSet<>();
+            atualizados = new LinkedHashSet<>();
+            removidos = new LinkedHashSet<>();
+            massivo = false;
+            totalInseridos = 0;
+            totalAtualizados = 0;
+            totalRemovidos = 0;
+            menorId = Integer.MAX_VALUE;
+            maiorId = Integer.MIN_VALUE;
+            origemImportacao = null;
+            publicacoes = 0;
+        }
+
+        SwingUtilities.invokeLater(() -> {
+            for (VendaListener listener : listeners) {
+                try {
+                    listener.onVendasChanged(evento);
+                } catch (RuntimeException e) {
+                    System.err.println("Erro ao notificar alteração de vendas: " + e.getMessage());
+                }
+            }
+        });
+    }
+
+    public class Lote implements AutoCloseable {
+        private boolean fechado = false;
+
+        @Override
+        public void close() {
+            if (!fechado) {
+                fechado = true;
+                fecharLote();
+            }
+        }
+    }
+}
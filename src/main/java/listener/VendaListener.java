@@ -2,4 +2,12 @@ package listener;
 
 public interface VendaListener {
     void onVendasChanged();
-}
\ No newline at end of file
+
+    /**
+     * Chamado pelo VendaEventBus, na EDT, com as alterações agrupadas na janela de coalescência.
+     * A implementação padrão ignora o detalhe e delega para {@link #onVendasChanged()}.
+     */
+    default void onVendasChanged(VendaEvent evento) {
+        onVendasChanged();
+    }
+}
@@ -0,0 +1,41 @@
+package model;
+
+/**
+ * Linha agregada pelo MySQL para o AnalyticsEngine: totais de um dia, de um dia da semana
+ * ou de um produto, conforme a dimensão.
+ */
+public class AgregadoVendas {
+
+    public enum Dimensao {
+        DIA,
+        DIA_SEMANA,
+        PRODUTO
+    }
+
+    private final Dimensao dimensao;
+    private final int chave;
+    private final String produto;
+    private final int vendas;
+    private final long quantidade;
+    private final long centavos;
+
+    /**
+     * @param chave dia desde 1970-01-01 (DIA) ou 0 = segunda-feira (DIA_SEMANA); ignorada em PRODUTO
+     * @param produto nome do produto (só em PRODUTO)
+     */
+    public AgregadoVendas(Dimensao dimensao, int chave, String produto, int vendas, long quantidade, long centavos) {
+        this.dimensao = dimensao;
+        this.chave = chave;
+        this.produto = produto;
+        this.vendas = vendas;
+        this.quantidade = quantidade;
+        this.centavos = centavos;
+    }
+
+    public Dimensao getDimensao() { return dimensao; }
+    public int getChave() { return chave; }
+    public String getProduto() { return produto; }
+    public int getVendas() { return vendas; }
+    public long getQuantidade() { return quantidade; }
+    public long getCentavos() { return centavos; }
+}
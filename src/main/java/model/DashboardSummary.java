@@ -0,0 +1,31 @@
+package model;
+
+import java.sql.Date;
+
+public class DashboardSummary {
+    private final int totalVendas;
+    private final double faturamentoTotal;
+    private final String produtoMaisVendido;
+    private final int quantidadeProdutoMaisVendido;
+    private final Date primeiraVenda;
+    private final Date ultimaVenda;
+
+    public DashboardSummary(int totalVendas, double faturamentoTotal, String produtoMaisVendido,
+                            int quantidadeProdutoMaisVendido, Date primeiraVenda, Date ultimaVenda) {
+        this.totalVendas = totalVendas;
+        this.faturamentoTotal = faturamentoTotal;
+        this.produtoMaisVendido = produtoMaisVendido;
+        this.quantidadeProdutoMaisVendido = quantidadeProdutoMaisVendido;
+        this.primeiraVenda = primeiraVenda;
+        this.ultimaVenda = ultimaVenda;
+    }
+
+    public int getTotalVendas() { return totalVendas; }
+    public double getFaturamentoTotal() { return faturamentoTotal; }
+    public double getTicketMedio() { return totalVendas == 0 ? 0.0 : faturamentoTotal / totalVendas; }
+    public String getProdutoMaisVendido() { return produtoMaisVendido; }
+    public int getQuantidadeProdutoMaisVendido() { return quantidadeProdutoMaisVendido; }
+    public Date getPrimeiraVenda() { return primeiraVenda; }
+    public Date getUltimaVenda() { return ultimaVenda; }
+    public boolean isVazio() { return totalVendas == 0; }
+}
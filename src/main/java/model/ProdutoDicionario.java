@@ -0,0 +1,82 @@
+package model;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dicionário global de nomes de produto: cada nome distinto recebe um id denso (0, 1, 2, ...)
+ * e uma única instância de String compartilhada por DAO, importação, VendaStore e analytics.
+ * Agrupar por produto vira indexação de array pelo id. Os ids só crescem; nomes nunca são removidos.
+ */
+public class ProdutoDicionario {
+
+    private static final ProdutoDicionario INSTANCIA = new ProdutoDicionario();
+
+    private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] nomes = new String[256];
+    private volatile int tamanho = 0;
+
+    ProdutoDicionario() {
+    }
+
+    public static ProdutoDicionario getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * @return id do produto, registrando o nome se ainda não existir
+     */
+    public int codificar(String nome) {
+        if (nome == null) {
+            throw new IllegalArgumentException("Nome do produto não pode ser nulo");
+        }
+        Integer id = ids.get(nome);
+        return id != null ? id : registrar(nome);
+    }
+
+    /**
+     * @return id do produto, ou -1 se o nome nunca foi registrado (não registra)
+     */
+    public int buscar(String nome) {
+        Integer id = nome == null ? null : ids.get(nome);
+        return id != null ? id : -1;
+    }
+
+    /**
+     * @return a instância compartilhada do nome (ou null se o nome for null)
+     */
+    public String canonico(String nome) {
+        return nome == null ? null : nome(codificar(nome));
+    }
+
+    public String nome(int id) {
+        if (id < 0 || id >= tamanho) {
+            throw new IllegalArgumentException("Produto com id " + id + " não existe no dicionário");
+        }
+        return nomes[id];
+    }
+
+    /**
+     * @return quantidade de produtos registrados; ids válidos vão de 0 a tamanho() - 1
+     */
+    public int tamanho() {
+        return tamanho;
+    }
+
+    private synchronized int registrar(String nome) {
+        Integer existente = ids.get(nome);
+        if (existente != null) {
+            return existente;
+        }
+        int id = tamanho;
+        String[] atuais = nomes;
+        if (id == atuais.length) {
+            atuais = Arrays.copyOf(atuais, atuais.length * 2);
+        }
+        atuais[id] = nome;
+        nomes = atuais;
+        tamanho = id + 1;
+        ids.put(nome, id);
+        return id;
+    }
+}
@@ -0,0 +1,30 @@
+package model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Vendas devolvidas por uma busca limitada. Quando havia mais correspondências do que o limite,
+ * a lista foi cortada e {@link #isTruncado()} é true: a interface deve pedir um termo mais específico.
+ */
+public class ResultadoBusca {
+    private final List<Venda> vendas;
+    private final boolean truncado;
+    private final int limite;
+
+    public ResultadoBusca(List<Venda> vendas, boolean truncado, int limite) {
+        this.vendas = Collections.unmodifiableList(vendas);
+        this.truncado = truncado;
+        this.limite = limite;
+    }
+
+    public List<Venda> getVendas() { return vendas; }
+    public boolean isTruncado() { return truncado; }
+    public int getLimite() { return limite; }
+
+    @Override
+    public String toString() {
+        return String.format("ResultadoBusca[%d vendas%s]", vendas.size(),
+                truncado ? ", cortado no limite de " + limite : "");
+    }
+}
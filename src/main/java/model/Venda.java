@@ -8,6 +8,7 @@ public class Venda {
     private int quantidade;
     private double valorUnitario;
     private Date data;
+    private int versao;
 
     public Venda(String produto, int quantidade, double valorUnitario, Date data) {
         this.produto = produto;
@@ -21,9 +22,15 @@ public class Venda {
         this.id = id;
     }
 
+    public Venda(int id, String produto, int quantidade, double valorUnitario, Date data, int versao) {
+        this(id, produto, quantidade, valorUnitario, data);
+        this.versao = versao;
+    }
+
     public int getId() { return id; }
     public String getProduto() { return produto; }
     public int getQuantidade() { return quantidade; }
     public double getValorUnitario() { return valorUnitario; }
     public Date getData() { return data; }
+    public int getVersao() { return versao; }
 }
\ No newline at end of file
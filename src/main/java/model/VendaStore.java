@@ -0,0 +1,268 @@
+package model;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Armazenamento colunar de vendas em arrays primitivos: cerca de 28 bytes por venda
+ * contra ~100 bytes de um Venda com Date e String próprios. Valores ficam em centavos,
+ * datas em dias desde 1970-01-01 e produtos como ids do {@link ProdutoDicionario} global.
+ * Mantém as vendas em ordem crescente de id quando alimentado nessa ordem,
+ * o que permite localizar uma venda por busca binária.
+ */
+public class VendaStore {
+
+    private static final int CAPACIDADE_INICIAL = 1024;
+
+    private int[] ids;
+    private int[] produtos;
+    private int[] quantidades;
+    private long[] centavos;
+    private int[] dias;
+    private int[] versoes;
+    private int tamanho = 0;
+    private boolean ordenadoPorId = true;
+    // Limites conservadores: remoções não os estreitam
+    private int menorDia = Integer.MAX_VALUE;
+    private int maiorDia = Integer.MIN_VALUE;
+    // Soma de quantidade × valor unitário de todas as vendas, mantida a cada alteração
+    private long totalCentavos = 0;
+
+    private final ProdutoDicionario dicionario = ProdutoDicionario.getInstancia();
+
+    public VendaStore() {
+        this(CAPACIDADE_INICIAL);
+    }
+
+    public VendaStore(int capacidade) {
+        int inicial = Math.max(capacidade, 16);
+        this.ids = new int[inicial];
+        this.produtos = new int[inicial];
+        this.quantidades = new int[inicial];
+        this.centavos = new long[inicial];
+        this.dias = new int[inicial];
+        this.versoes = new int[inicial];
+    }
+
+    /**
+     * Monta um store a partir de vendas já carregadas, ordenando-as por id
+     */
+    public static VendaStore de(Collection<Venda> vendas) {
+        List<Venda> ordenadas = new ArrayList<>(vendas);
+        ordenadas.sort(Comparator.comparingInt(Venda::getId));
+        VendaStore store = new VendaStore(ordenadas.size());
+        for (Venda venda : ordenadas) {
+            store.adicionar(venda);
+        }
+        return store;
+    }
+
+    public void adicionar(Venda venda) {
+        adicionar(venda.getId(), venda.getProduto(), venda.getQuantidade(),
+                paraCentavos(venda.getValorUnitario()), paraDia(venda.getData()), venda.getVersao());
+    }
+
+    public void adicionar(int id, String produto, int quantidade, long valorUnitarioCentavos, int diaEpoch, int versao) {
+        garantirCapacidade(tamanho + 1);
+        if (tamanho > 0 && id <= ids[tamanho - 1]) {
+            ordenadoPorId = false;
+        }
+        ids[tamanho] = id;
+        produtos[tamanho] = dicionario.codificar(produto);
+        quantidades[tamanho] = quantidade;
+        centavos[tamanho] = valorUnitarioCentavos;
+        dias[tamanho] = diaEpoch;
+        versoes[tamanho] = versao;
+        menorDia = Math.min(menorDia, diaEpoch);
+        maiorDia = Math.max(maiorDia, diaEpoch);
+        totalCentavos += quantidade * valorUnitarioCentavos;
+        tamanho++;
+    }
+
+    public void atualizar(int indice, String produto, int quantidade, long valorUnitarioCentavos, int versao) {
+        verificarIndice(indice);
+        totalCentavos += quantidade * valorUnitarioCentavos - getTotalCentavos(indice);
+        produtos[indice] = dicionario.codificar(produto);
+        quantidades[indice] = quantidade;
+        centavos[indice] = valorUnitarioCentavos;
+        versoes[indice] = versao;
+    }
+
+    public void remover(int indice) {
+        verificarIndice(indice);
+        totalCentavos -= getTotalCentavos(indice);
+        int mover = tamanho - indice - 1;
+        if (mover > 0) {
+            System.arraycopy(ids, indice + 1, ids, indice, mover);
+            System.arraycopy(produtos, indice + 1, produtos, indice, mover);
+            System.arraycopy(quantidades, indice + 1, quantidades, indice, mover);
+            System.arraycopy(centavos, indice + 1, centavos, indice, mover);
+            System.arraycopy(dias, indice + 1, dias, indice, mover);
+            System.arraycopy(versoes, indice + 1, versoes, indice, mover);
+        }
+        tamanho--;
+    }
+
+    /**
+     * @return posição da venda com o id informado, ou -1 se ausente
+     */
+    public int indiceDe(int id) {
+        if (ordenadoPorId) {
+            int indice = Arrays.binarySearch(ids, 0, tamanho, id);
+            return indice >= 0 ? indice : -1;
+        }
+        for (int i = 0; i < tamanho; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public void limpar() {
+        tamanho = 0;
+        totalCentavos = 0;
+        ordenadoPorId = true;
+        menorDia = Integer.MAX_VALUE;
+        maiorDia = Integer.MIN_VALUE;
+    }
+
+    public int tamanho() { return tamanho; }
+    public boolean isVazio() { return tamanho == 0; }
+
+    public int getId(int i) { return ids[i]; }
+    public int getProdutoId(int i) { return produtos[i]; }
+    public String getProduto(int i) { return dicionario.nome(produtos[i]); }
+    public int getQuantidade(int i) { return quantidades[i]; }
+    public long getValorUnitarioCentavos(int i) { return centavos[i]; }
+    public long getTotalCentavos(int i) { return quantidades[i] * centavos[i]; }
+    public int getDia(int i) { return dias[i]; }
+
+    /**
+     * @return faturamento de todas as vendas em centavos, em O(1)
+     */
+    public long getFaturamentoCentavos() { return totalCentavos; }
+    public int getVersao(int i) { return versoes[i]; }
+
+    /**
+     * @return menor dia já armazenado (Integer.MAX_VALUE se vazio); pode ser de uma venda já removida
+     */
+    public int getMenorDia() { return menorDia; }
+
+    /**
+     * @return maior dia já armazenado (Integer.MIN_VALUE se vazio); pode ser de uma venda já removida
+     */
+    public int getMaiorDia() { return maiorDia; }
+
+    public int getMaiorId() {
+        if (tamanho == 0) {
+            return 0;
+        }
+        if (ordenadoPorId) {
+            return ids[tamanho - 1];
+        }
+        int maior = ids[0];
+        for (int i = 1; i < tamanho; i++) {
+            maior = Math.max(maior, ids[i]);
+        }
+        return maior;
+    }
+
+    /**
+     * @return tamanho do dicionário de produtos: arrays indexados por getProdutoId precisam deste tamanho
+     */
+    public int getTotalProdutos() { return dicionario.tamanho(); }
+
+    public String getNomeProduto(int produtoId) { return dicionario.nome(produtoId); }
+
+    public Venda toVenda(int i) {
+        return new Venda(ids[i], getProduto(i), quantidades[i], centavos[i] / 100.0,
+                Date.valueOf(LocalDate.ofEpochDay(dias[i])), versoes[i]);
+    }
+
+    /**
+     * Cópia independente, com arrays do tamanho exato, para leitura enquanto o original é alterado
+     */
+    public VendaStore copiar() {
+        VendaStore copia = new VendaStore(tamanho);
+        System.arraycopy(ids, 0, copia.ids, 0, tamanho);
+        System.arraycopy(produtos, 0, copia.produtos, 0, tamanho);
+        System.arraycopy(quantidades, 0, copia.quantidades, 0, tamanho);
+        System.arraycopy(centavos, 0, copia.centavos, 0, tamanho);
+        System.arraycopy(dias, 0, copia.dias, 0, tamanho);
+        System.arraycopy(versoes, 0, copia.versoes, 0, tamanho);
+        copia.tamanho = tamanho;
+        copia.ordenadoPorId = ordenadoPorId;
+        copia.menorDia = menorDia;
+        copia.maiorDia = maiorDia;
+        copia.totalCentavos = totalCentavos;
+        return copia;
+    }
+
+    /**
+     * @return novo store só com as vendas a partir do dia informado
+     */
+    public VendaStore recortarDesde(int diaInicio) {
+        int total = 0;
+        for (int i = 0; i < tamanho; i++) {
+            if (dias[i] >= diaInicio) {
+                total++;
+            }
+        }
+        VendaStore recorte = new VendaStore(total);
+        int j = 0;
+        for (int i = 0; i < tamanho; i++) {
+            if (dias[i] >= diaInicio) {
+                recorte.ids[j] = ids[i];
+                recorte.produtos[j] = produtos[i];
+                recorte.quantidades[j] = quantidades[i];
+                recorte.centavos[j] = centavos[i];
+                recorte.dias[j] = dias[i];
+                recorte.versoes[j] = versoes[i];
+                recorte.menorDia = Math.min(recorte.menorDia, dias[i]);
+                recorte.maiorDia = Math.max(recorte.maiorDia, dias[i]);
+                recorte.totalCentavos += getTotalCentavos(i);
+                j++;
+            }
+        }
+        recorte.tamanho = total;
+        recorte.ordenadoPorId = ordenadoPorId;
+        return recorte;
+    }
+
+    public static long paraCentavos(double valor) {
+        return Math.round(valor * 100);
+    }
+
+    public static int paraDia(Date data) {
+        return (int) data.toLocalDate().toEpochDay();
+    }
+
+    public static int paraDia(LocalDate data) {
+        return (int) data.toEpochDay();
+    }
+
+    private void verificarIndice(int indice) {
+        if (indice < 0 || indice >= tamanho) {
+            throw new IndexOutOfBoundsException("Índice " + indice + " fora do store de " + tamanho + " vendas");
+        }
+    }
+
+    private void garantirCapacidade(int minimo) {
+        if (minimo <= ids.length) {
+            return;
+        }
+        int novaCapacidade = Math.max(minimo, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, novaCapacidade);
+        produtos = Arrays.copyOf(produtos, novaCapacidade);
+        quantidades = Arrays.copyOf(quantidades, novaCapacidade);
+        centavos = Arrays.copyOf(centavos, novaCapacidade);
+        dias = Arrays.copyOf(dias, novaCapacidade);
+        versoes = Arrays.copyOf(versoes, novaCapacidade);
+    }
+}
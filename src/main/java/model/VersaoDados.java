@@ -0,0 +1,33 @@
+package model;
+
+/**
+ * Carimbo de versão da tabela de vendas: o contador de vendas_versao, incrementado pelos triggers
+ * a cada linha inserida, atualizada ou removida.
+ */
+public class VersaoDados {
+    private final long alteracoes;
+
+    public VersaoDados(long alteracoes) {
+        this.alteracoes = alteracoes;
+    }
+
+    public long getAlteracoes() { return alteracoes; }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof VersaoDados)) return false;
+        VersaoDados that = (VersaoDados) o;
+        return alteracoes == that.alteracoes;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(alteracoes);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("VersaoDados[alteracoes=%d]", alteracoes);
+    }
+}
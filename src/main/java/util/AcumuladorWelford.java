@@ -0,0 +1,44 @@
+package util;
+
+/**
+ * Média e variância em memória constante pelo algoritmo de Welford: estável numericamente
+ * e, diferente de uma EWMA, aceita desfazer um valor adicionado antes.
+ */
+public class AcumuladorWelford {
+
+    private long quantidade = 0;
+    private double media = 0;
+    private double m2 = 0;
+
+    public void adicionar(double valor) {
+        quantidade++;
+        double delta = valor - media;
+        media += delta / quantidade;
+        m2 += delta * (valor - media);
+    }
+
+    /**
+     * Desfaz um {@link #adicionar} anterior do mesmo valor
+     */
+    public void remover(double valor) {
+        if (quantidade <= 1) {
+            quantidade = 0;
+            media = 0;
+            m2 = 0;
+            return;
+        }
+        double mediaAnterior = media;
+        quantidade--;
+        media = (mediaAnterior * (quantidade + 1) - valor) / quantidade;
+        m2 = Math.max(0, m2 - (valor - mediaAnterior) * (valor - media));
+    }
+
+    public long getQuantidade() { return quantidade; }
+    public double getMedia() { return media; }
+
+    /**
+     * @return variância populacional (divisão por n)
+     */
+    public double getVariancia() { return quantidade == 0 ? 0 : m2 / quantidade; }
+    public double getDesvioPadrao() { return Math.sqrt(getVariancia()); }
+}
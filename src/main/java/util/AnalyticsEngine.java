@@ -1,11 +1,29 @@
 package util;
 
+import controller.VendaController;
+import model.AgregadoVendas;
+import model.ProdutoDicionario;
 import model.Venda;
-import java.sql.Date;
+import model.VendaStore;
+import model.VersaoDados;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 public class AnalyticsEngine {
 
@@ -13,11 +31,161 @@ public class AnalyticsEngine {
     private static final double QUEDA_PREOCUPANTE = -0.10;
     private static final int DIAS_ANALISE_TREND = 30;
     private static final double DESVIO_PADRAO_LIMITE = 2.0;
+    private static final int DIAS_AQUECIMENTO_ANOMALIAS = 7;
+    private static final boolean BASE_ANOMALIAS_EWMA =
+            "EWMA".equalsIgnoreCase(AppConfig.get("ANALYTICS_ANOMALIA_BASE", "WELFORD"));
+    private static final double ALFA_EWMA_ANOMALIAS = Math.min(1, Math.max(0.01,
+            AppConfig.getDouble("ANALYTICS_ANOMALIA_EWMA_ALFA", 0.1)));
+
+    private static final int DIAS_JANELA_HISTORICO = AppConfig.getInt("ANALYTICS_JANELA_HISTORICO_DIAS", 0);
+    private static final boolean FONTE_SQL = "SQL".equalsIgnoreCase(AppConfig.get("ANALYTICS_FONTE", "MEMORIA"));
+    private static final int TOP_PRODUTOS = Math.max(1, AppConfig.getInt("ANALYTICS_TOP_PRODUTOS", 3));
+    private static final long ORCAMENTO_ANALISADOR_MS = AppConfig.getLong("ANALYTICS_ORCAMENTO_MS", 2000);
+
+    private static final ExecutorService EXECUTOR = criarExecutor();
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final ProdutoDicionario produtos = ProdutoDicionario.getInstancia();
+    private final EstadoAnalitico estado = EstadoAnalitico.getInstancia();
+
+    // Últimos insights gerados pelo caminho do VendaController, válidos enquanto versão, dia e janela não mudarem
+    private volatile InsightsEmCache insightsEmCache;
+    private final LongAdder acertosCacheInsights = new LongAdder();
+    private final LongAdder falhasCacheInsights = new LongAdder();
+
+    private final List<Analisador> analisadores = new CopyOnWriteArrayList<>(List.of(
+            analisador("Tendência", this::analisarTendenciaVendas),
+            analisador("Produtos mais vendidos", this::analisarProdutosMaisVendidos),
+            analisador("Performance recente", this::analisarPerformanceTempoReal),
+            analisador("Anomalias", this::analisarAnomalias),
+            analisador("Sazonalidade", this::analisarSazonalidade),
+            analisador("Oportunidades", this::analisarOportunidades)
+    ));
+
+    /**
+     * Sem fila: cada analisador ganha uma thread assim que é submetido, então nenhum orçamento é gasto
+     * esperando atrás de outro analisador (nem atrás de um que estourou na rodada anterior).
+     * Threads ociosas são encerradas depois de 60 s.
+     */
+    private static ExecutorService criarExecutor() {
+        AtomicInteger contador = new AtomicInteger();
+        return Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r, "analytics-" + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * Acrescenta um analisador aos seis embutidos; ele roda em paralelo com os demais
+     */
+    public void registrarAnalisador(Analisador analisador) {
+        analisadores.add(analisador);
+        invalidarCacheInsights();
+    }
 
     public List<Insight> gerarInsightsAutomaticos(List<Venda> vendas) {
+        int hoje = VendaStore.paraDia(LocalDate.now());
+        return gerarInsights(ResumoAnalitico.calcular(VendaStore.de(vendas), hoje, Integer.MIN_VALUE), resultado -> { });
+    }
+
+    /**
+     * Gera os insights a partir do EstadoAnalitico, mantido incrementalmente pelo cache de vendas
+     * (sem consultar o banco e sem varrer as vendas), ou dos agregados do MySQL com ANALYTICS_FONTE=SQL. As janelas recentes servem à tendência e à
+     * performance, e os agregados de ANALYTICS_JANELA_HISTORICO_DIAS (0 = todo o histórico)
+     * servem a produtos, anomalias, sazonalidade e oportunidades.
+     */
+    public List<Insight> gerarInsightsAutomaticos(VendaController vendaController) throws SQLException {
+        return gerarInsightsAutomaticos(vendaController, resultado -> { });
+    }
+
+    /**
+     * Como {@link #gerarInsightsAutomaticos(VendaController)}, entregando o resultado de cada analisador
+     * assim que ele termina (ex.: para SwingWorker.publish), sem esperar pelos mais lentos
+     * @param aoConcluir chamado na thread do analisador, uma vez por analisador
+     */
+    public List<Insight> gerarInsightsAutomaticos(VendaController vendaController,
+                                                  Consumer<ResultadoAnalise> aoConcluir) throws SQLException {
+        int hoje = VendaStore.paraDia(LocalDate.now());
+        int inicioHistorico = DIAS_JANELA_HISTORICO <= 0
+                ? Integer.MIN_VALUE
+                : hoje - (DIAS_JANELA_HISTORICO - 1);
+
+        VersaoDados versao = FONTE_SQL ? vendaController.obterVersaoDadosBanco() : vendaController.obterVersaoDados();
+        InsightsEmCache emCache = insightsEmCache;
+        if (emCache != null && emCache.valePara(versao, hoje, inicioHistorico)) {
+            acertosCacheInsights.increment();
+            return new ArrayList<>(emCache.insights);
+        }
+        falhasCacheInsights.increment();
+
+        AtomicBoolean incompleto = new AtomicBoolean(false);
+        List<Insight> insights = gerarInsights(obterResumo(vendaController, hoje, inicioHistorico), resultado -> {
+            if (!resultado.isConcluido()) {
+                incompleto.set(true);
+            }
+            aoConcluir.accept(resultado);
+        });
+        // Uma rodada com analisador estourado ou com erro não é guardada: o próximo pedido tenta de novo
+        if (!incompleto.get()) {
+            insightsEmCache = new InsightsEmCache(versao, hoje, inicioHistorico, insights);
+        }
+        return insights;
+    }
+
+    /**
+     * Descarta os insights guardados; o próximo pedido recalcula mesmo sem mudança nos dados
+     */
+    public void invalidarCacheInsights() {
+        insightsEmCache = null;
+    }
+
+    public long getAcertosCacheInsights() { return acertosCacheInsights.sum(); }
+    public long getFalhasCacheInsights() { return falhasCacheInsights.sum(); }
+
+    /**
+     * Com ANALYTICS_FONTE=SQL os agregados vêm prontos do MySQL (GROUP BY dia, dia da semana e produto);
+     * caso contrário, do EstadoAnalitico mantido em memória a partir do cache de vendas
+     */
+    private ResumoAnalitico obterResumo(VendaController vendaController, int hoje, int inicioHistorico)
+            throws SQLException {
+        if (FONTE_SQL) {
+            int inicioDias = Math.min(inicioHistorico, ResumoAnalitico.inicioDiasRecentes(hoje));
+            List<AgregadoVendas> agregados = vendaController.obterAgregadosAnalytics(
+                    inicioHistorico == Integer.MIN_VALUE ? null : LocalDate.ofEpochDay(inicioDias),
+                    inicioHistorico == Integer.MIN_VALUE ? null : LocalDate.ofEpochDay(inicioHistorico));
+            return ResumoAnalitico.deAgregados(agregados, hoje, inicioHistorico);
+        }
+        vendaController.sincronizarCache();
+        return estado.obterResumo(hoje, inicioHistorico);
+    }
+
+    /**
+     * @return totais de um intervalo de datas qualquer (inclusive), lidos do índice diário sem varrer as vendas
+     */
+    public EstadoAnalitico.Totais obterTotaisEntre(VendaController vendaController, LocalDate inicio, LocalDate fim)
+            throws SQLException {
+        vendaController.sincronizarCache();
+        return estado.obterTotaisEntre(inicio, fim);
+    }
+
+    public ComparacaoPeriodos compararPeriodos(VendaController vendaController,
+                                               LocalDate inicioAtual, LocalDate fimAtual,
+                                               LocalDate inicioAnterior, LocalDate fimAnterior) throws SQLException {
+        vendaController.sincronizarCache();
+        return new ComparacaoPeriodos(estado.obterTotaisEntre(inicioAtual, fimAtual),
+                estado.obterTotaisEntre(inicioAnterior, fimAnterior));
+    }
+
+    /**
+     * Roda os analisadores em paralelo, cada um limitado a ANALYTICS_ORCAMENTO_MS contados a partir do
+     * momento em que ele começa a rodar. Um analisador que estoura o orçamento é descartado desta rodada
+     * e sua thread é interrompida; os demais seguem.
+     */
+    private List<Insight> gerarInsights(ResumoAnalitico resumo, Consumer<ResultadoAnalise> aoConcluir) {
         List<Insight> insights = new ArrayList<>();
 
-        if (vendas.isEmpty()) {
+        if (resumo.getVendasHistorico() == 0 && resumo.getVendasJanelaRecente() == 0) {
             insights.add(new Insight(
                     TipoInsight.INFO,
                     "Sistema Inicializado",
@@ -27,35 +195,102 @@ public class AnalyticsEngine {
             return insights;
         }
 
-        insights.addAll(analisarTendenciaVendas(vendas));
-        insights.addAll(analisarProdutosMaisVendidos(vendas));
-        insights.addAll(analisarPerformanceTempoReal(vendas));
-        insights.addAll(analisarAnomalias(vendas));
-        insights.addAll(analisarSazonalidade(vendas));
-        insights.addAll(analisarOportunidades(vendas));
+        List<CompletableFuture<ResultadoAnalise>> execucoes = new ArrayList<>();
+        long orcamentoMs = Math.max(1, ORCAMENTO_ANALISADOR_MS);
+        for (Analisador analisador : analisadores) {
+            CompletableFuture<ResultadoAnalise> execucao = new CompletableFuture<>();
+            Future<?> tarefa = EXECUTOR.submit(() -> executar(analisador, resumo, orcamentoMs, execucao));
+            execucao.whenComplete((resultado, e) -> {
+                if (resultado != null && !resultado.isConcluido()) {
+                    tarefa.cancel(true);
+                }
+            });
+            execucoes.add(execucao.thenApply(resultado -> {
+                notificar(aoConcluir, resultado);
+                return resultado;
+            }));
+        }
+
+        for (CompletableFuture<ResultadoAnalise> execucao : execucoes) {
+            ResultadoAnalise resultado = execucao.join();
+            if (resultado.isConcluido()) {
+                insights.addAll(resultado.getInsights());
+            } else {
+                System.err.println(" Analisador ignorado: " + resultado);
+            }
+        }
 
         insights.sort((a, b) -> a.getTipo().getPrioridade() - b.getTipo().getPrioridade());
 
         return insights;
     }
 
-    private List<Insight> analisarTendenciaVendas(List<Venda> vendas) {
-        List<Insight> insights = new ArrayList<>();
+    private void executar(Analisador analisador, ResumoAnalitico resumo, long orcamentoMs,
+                          CompletableFuture<ResultadoAnalise> execucao) {
+        // O relógio do orçamento começa aqui, quando o analisador de fato começa a rodar
+        execucao.completeOnTimeout(ResultadoAnalise.esgotado(analisador.getNome(), orcamentoMs),
+                orcamentoMs, TimeUnit.MILLISECONDS);
+        try {
+            execucao.complete(medir(analisador, resumo));
+        } catch (RuntimeException | Error e) {
+            execucao.complete(ResultadoAnalise.falha(analisador.getNome(), new CompletionException(e)));
+        }
+    }
 
-        LocalDate hoje = LocalDate.now();
-        LocalDate inicio30Dias = hoje.minusDays(30);
-        LocalDate inicio60Dias = hoje.minusDays(60);
+    private ResultadoAnalise medir(Analisador analisador, ResumoAnalitico resumo) {
+        long bytesInicio = bytesAlocadosThread();
+        long inicio = System.nanoTime();
+        List<Insight> insights = analisador.analisar(resumo);
+        long tempoNs = System.nanoTime() - inicio;
+        long bytesFim = bytesAlocadosThread();
+        long bytesAlocados = bytesInicio < 0 || bytesFim < 0 ? -1 : bytesFim - bytesInicio;
+        return new ResultadoAnalise(analisador.getNome(), insights, tempoNs, bytesAlocados, null);
+    }
 
-        List<Venda> vendasRecentes = vendas.stream()
-                .filter(v -> v.getData().toLocalDate().isAfter(inicio30Dias))
-                .collect(Collectors.toList());
+    private static void notificar(Consumer<ResultadoAnalise> aoConcluir, ResultadoAnalise resultado) {
+        try {
+            aoConcluir.accept(resultado);
+        } catch (RuntimeException e) {
+            System.err.println("Erro ao publicar resultado do analisador " + resultado.getNome() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return bytes já alocados pela thread atual, ou -1 se a JVM não oferecer a medição
+     */
+    private static long bytesAlocadosThread() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    private static Analisador analisador(String nome, Function<ResumoAnalitico, List<Insight>> funcao) {
+        return new Analisador() {
+            @Override
+            public String getNome() {
+                return nome;
+            }
 
-        List<Venda> vendasAnteriores = vendas.stream()
-                .filter(v -> v.getData().toLocalDate().isAfter(inicio60Dias)
-                        && v.getData().toLocalDate().isBefore(inicio30Dias))
-                .collect(Collectors.toList());
+            @Override
+            public List<Insight> analisar(ResumoAnalitico resumo) {
+                return funcao.apply(resumo);
+            }
+        };
+    }
+
+    private List<Insight> analisarTendenciaVendas(ResumoAnalitico resumo) {
+        List<Insight> insights = new ArrayList<>();
 
-        if (vendasAnteriores.isEmpty()) {
+        if (resumo.getCentavosMesAnterior() > 0) {
+            insights.add(compararComPeriodoAnterior("Mês Atual x Mês Anterior", "no mês até hoje",
+                    "o mesmo trecho do mês passado", resumo.getCentavosMesAtual(), resumo.getCentavosMesAnterior()));
+        }
+
+        if (resumo.getVendasAnteriores30Dias() == 0) {
             insights.add(new Insight(
                     TipoInsight.INFO,
                     "Dados Insuficientes para Tendência",
@@ -65,8 +300,8 @@ public class AnalyticsEngine {
             return insights;
         }
 
-        double faturamentoRecente = calcularFaturamento(vendasRecentes);
-        double faturamentoAnterior = calcularFaturamento(vendasAnteriores);
+        double faturamentoRecente = resumo.getCentavosUltimos30Dias() / 100.0;
+        double faturamentoAnterior = resumo.getCentavosAnteriores30Dias() / 100.0;
 
         if (faturamentoAnterior > 0) {
             double crescimento = (faturamentoRecente - faturamentoAnterior) / faturamentoAnterior;
@@ -98,72 +333,63 @@ public class AnalyticsEngine {
         return insights;
     }
 
-    private List<Insight> analisarProdutosMaisVendidos(List<Venda> vendas) {
+    private List<Insight> analisarProdutosMaisVendidos(ResumoAnalitico resumo) {
         List<Insight> insights = new ArrayList<>();
 
-        Map<String, Integer> produtosPorQuantidade = vendas.stream()
-                .collect(Collectors.groupingBy(
-                        Venda::getProduto,
-                        Collectors.summingInt(Venda::getQuantidade)
-                ));
-
-        Map<String, Double> produtosPorFaturamento = vendas.stream()
-                .collect(Collectors.groupingBy(
-                        Venda::getProduto,
-                        Collectors.summingDouble(v -> v.getQuantidade() * v.getValorUnitario())
-                ));
-
-        List<Map.Entry<String, Integer>> topQuantidade = produtosPorQuantidade.entrySet().stream()
-                .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
-                .limit(3)
-                .collect(Collectors.toList());
-
-        List<Map.Entry<String, Double>> topFaturamento = produtosPorFaturamento.entrySet().stream()
-                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
-                .limit(3)
-                .collect(Collectors.toList());
-
-        if (!topQuantidade.isEmpty()) {
-            String produtoMaisVendido = topQuantidade.get(0).getKey();
-            int quantidade = topQuantidade.get(0).getValue();
+        TopK topQuantidade = new TopK(TOP_PRODUTOS);
+        TopK topFaturamento = new TopK(1);
+        for (int produto = 0; produto < resumo.getTotalProdutos(); produto++) {
+            if (resumo.getVendasProduto(produto) == 0) {
+                continue;
+            }
+            topQuantidade.oferecer(produto, resumo.getQuantidadeProduto(produto));
+            topFaturamento.oferecer(produto, resumo.getCentavosProduto(produto));
+        }
 
+        int[] ranking = topQuantidade.ordenados();
+        if (ranking.length > 0) {
+            int campeao = ranking[0];
+            StringBuilder descricao = new StringBuilder(String.format("%s é seu produto mais vendido com %d unidades!",
+                    produtos.nome(campeao), resumo.getQuantidadeProduto(campeao)));
+            if (ranking.length > 1) {
+                descricao.append(" Seguido por ");
+                for (int i = 1; i < ranking.length; i++) {
+                    if (i > 1) {
+                        descricao.append(i == ranking.length - 1 ? " e " : ", ");
+                    }
+                    descricao.append(String.format("%s (%d)", produtos.nome(ranking[i]),
+                            resumo.getQuantidadeProduto(ranking[i])));
+                }
+                descricao.append('.');
+            }
             insights.add(new Insight(
                     TipoInsight.SUCESSO,
                     "Produto Campeão de Vendas!",
-                    String.format("%s é seu produto mais vendido com %d unidades!", produtoMaisVendido, quantidade),
+                    descricao.toString(),
                     "Considere aumentar o estoque deste produto e criar promoções relacionadas."
             ));
         }
 
-        if (!topFaturamento.isEmpty()) {
-            String produtoMaiorFaturamento = topFaturamento.get(0).getKey();
-            double faturamento = topFaturamento.get(0).getValue();
-
-            if (!produtoMaiorFaturamento.equals(topQuantidade.get(0).getKey())) {
-                insights.add(new Insight(
-                        TipoInsight.INFO,
-                        "Produto de Alto Valor Identificado",
-                        String.format("%s gera mais faturamento (R$ %.2f) apesar de não ser o mais vendido.",
-                                produtoMaiorFaturamento, faturamento),
-                        "Foque em vender mais deste produto de alta margem."
-                ));
-            }
+        int[] maiorFaturamento = topFaturamento.ordenados();
+        if (maiorFaturamento.length > 0 && maiorFaturamento[0] != ranking[0]) {
+            int produto = maiorFaturamento[0];
+            insights.add(new Insight(
+                    TipoInsight.INFO,
+                    "Produto de Alto Valor Identificado",
+                    String.format("%s gera mais faturamento (R$ %.2f) apesar de não ser o mais vendido.",
+                            produtos.nome(produto), resumo.getCentavosProduto(produto) / 100.0),
+                    "Foque em vender mais deste produto de alta margem."
+            ));
         }
 
         return insights;
     }
 
-    private List<Insight> analisarPerformanceTempoReal(List<Venda> vendas) {
+    private List<Insight> analisarPerformanceTempoReal(ResumoAnalitico resumo) {
         List<Insight> insights = new ArrayList<>();
 
-        LocalDate hoje = LocalDate.now();
-        LocalDate seteDiasAtras = hoje.minusDays(7);
-
-        List<Venda> vendasRecentes = vendas.stream()
-                .filter(v -> v.getData().toLocalDate().isAfter(seteDiasAtras))
-                .collect(Collectors.toList());
-
-        if (vendasRecentes.isEmpty()) {
+        int vendasSemana = resumo.getVendasUltimos7Dias();
+        if (vendasSemana == 0) {
             insights.add(new Insight(
                     TipoInsight.ALERTA,
                     "Nenhuma Venda Recente",
@@ -173,21 +399,23 @@ public class AnalyticsEngine {
             return insights;
         }
 
-        double faturamentoSemana = calcularFaturamento(vendasRecentes);
-        double ticketMedio = faturamentoSemana / vendasRecentes.size();
+        double faturamentoSemana = resumo.getCentavosUltimos7Dias() / 100.0;
+        double ticketMedio = faturamentoSemana / vendasSemana;
 
         insights.add(new Insight(
                 TipoInsight.INFO,
                 "Performance da Última Semana",
                 String.format("Foram %d vendas totalizando R$ %.2f (ticket médio: R$ %.2f).",
-                        vendasRecentes.size(), faturamentoSemana, ticketMedio),
+                        vendasSemana, faturamentoSemana, ticketMedio),
                 "Continue monitorando este desempenho diariamente."
         ));
 
-        boolean vendasHoje = vendasRecentes.stream()
-                .anyMatch(v -> v.getData().toLocalDate().equals(hoje));
+        if (resumo.getCentavosSemanaAnterior() > 0) {
+            insights.add(compararComPeriodoAnterior("Semana Atual x Semana Anterior", "nos últimos 7 dias",
+                    "os 7 dias anteriores", resumo.getCentavosUltimos7Dias(), resumo.getCentavosSemanaAnterior()));
+        }
 
-        if (!vendasHoje) {
+        if (!resumo.isVendaHoje()) {
             insights.add(new Insight(
                     TipoInsight.ALERTA,
                     "Sem Vendas Hoje",
@@ -199,80 +427,94 @@ public class AnalyticsEngine {
         return insights;
     }
 
-    private List<Insight> analisarAnomalias(List<Venda> vendas) {
+    /**
+     * Faturamento de um período contra o anterior, classificado pelos mesmos limites da tendência
+     */
+    private static Insight compararComPeriodoAnterior(String titulo, String periodo, String periodoAnterior,
+                                                      long centavosAtual, long centavosAnterior) {
+        double variacao = (double) (centavosAtual - centavosAnterior) / centavosAnterior;
+        String descricao = String.format("Faturamento de R$ %.2f %s, %s%.1f%% em relação a %s (R$ %.2f).",
+                centavosAtual / 100.0, periodo, variacao >= 0 ? "+" : "", variacao * 100,
+                periodoAnterior, centavosAnterior / 100.0);
+        if (variacao > CRESCIMENTO_ALTO) {
+            return new Insight(TipoInsight.SUCESSO, titulo, descricao,
+                    "Identifique o que impulsionou o período e repita a estratégia.");
+        }
+        if (variacao < QUEDA_PREOCUPANTE) {
+            return new Insight(TipoInsight.ALERTA, titulo, descricao,
+                    "Compare os produtos vendidos nos dois períodos para entender a queda.");
+        }
+        return new Insight(TipoInsight.INFO, titulo, descricao, "Desempenho em linha com o período anterior.");
+    }
+
+    /**
+     * As anomalias já vêm detectadas no resumo: o EstadoAnalitico alimenta um detector vivo à medida que
+     * os dias fecham, e os resumos montados do zero repassam os dias em ordem (ver ResumoAnalitico)
+     */
+    private List<Insight> analisarAnomalias(ResumoAnalitico resumo) {
         List<Insight> insights = new ArrayList<>();
 
-        if (vendas.size() < 10) {
+        if (resumo.getVendasHistorico() < 10) {
             return insights;
         }
+        for (DetectorAnomalias.Anomalia anomalia : resumo.getAnomalias()) {
+            insights.add(criarInsightAnomalia(anomalia));
+        }
+        return insights;
+    }
 
-        Map<LocalDate, Double> faturamentoPorDia = vendas.stream()
-                .collect(Collectors.groupingBy(
-                        v -> v.getData().toLocalDate(),
-                        Collectors.summingDouble(v -> v.getQuantidade() * v.getValorUnitario())
-                ));
+    /**
+     * Detector com a configuração de ANALYTICS_ANOMALIA_BASE e ANALYTICS_ANOMALIA_EWMA_ALFA
+     */
+    static DetectorAnomalias novoDetectorAnomalias() {
+        return new DetectorAnomalias(DESVIO_PADRAO_LIMITE, DIAS_AQUECIMENTO_ANOMALIAS,
+                BASE_ANOMALIAS_EWMA, ALFA_EWMA_ANOMALIAS);
+    }
 
-        List<Double> faturamentosDiarios = new ArrayList<>(faturamentoPorDia.values());
-        double media = faturamentosDiarios.stream().mapToDouble(Double::doubleValue).average().orElse(0);
-        double desvioPadrao = calcularDesvioPadrao(faturamentosDiarios, media);
-
-        for (Map.Entry<LocalDate, Double> entry : faturamentoPorDia.entrySet()) {
-            double faturamento = entry.getValue();
-            double zScore = Math.abs(faturamento - media) / desvioPadrao;
-
-            if (zScore > DESVIO_PADRAO_LIMITE) {
-                if (faturamento > media) {
-                    insights.add(new Insight(
-                            TipoInsight.SUCESSO,
-                            "Dia Excepcional de Vendas!",
-                            String.format("No dia %s você faturou R$ %.2f (%.1fx acima da média)!",
-                                    entry.getKey(), faturamento, faturamento / media),
-                            "Analise o que funcionou nesse dia para replicar o sucesso."
-                    ));
-                } else {
-                    insights.add(new Insight(
-                            TipoInsight.ALERTA,
-                            "Dia de Baixa Performance",
-                            String.format("No dia %s o faturamento foi R$ %.2f (%.1fx abaixo da média).",
-                                    entry.getKey(), faturamento, media / faturamento),
-                            "Investigue possíveis causas e previna futuras quedas."
-                    ));
-                }
-            }
+    private Insight criarInsightAnomalia(DetectorAnomalias.Anomalia anomalia) {
+        LocalDate data = LocalDate.ofEpochDay(anomalia.getDia());
+        double faturamento = anomalia.getValor();
+        double base = anomalia.getBase();
+        if (anomalia.isAcimaDaBase()) {
+            return new Insight(
+                    TipoInsight.SUCESSO,
+                    "Dia Excepcional de Vendas!",
+                    String.format("No dia %s você faturou R$ %.2f (%.1fx acima da média)!",
+                            data, faturamento, faturamento / base),
+                    "Analise o que funcionou nesse dia para replicar o sucesso."
+            );
         }
-
-        return insights;
+        return new Insight(
+                TipoInsight.ALERTA,
+                "Dia de Baixa Performance",
+                String.format("No dia %s o faturamento foi R$ %.2f (%.1fx abaixo da média).",
+                        data, faturamento, base / faturamento),
+                "Investigue possíveis causas e previna futuras quedas."
+        );
     }
 
-    private List<Insight> analisarSazonalidade(List<Venda> vendas) {
+    private List<Insight> analisarSazonalidade(ResumoAnalitico resumo) {
         List<Insight> insights = new ArrayList<>();
 
-        if (vendas.size() < 14) {
+        if (resumo.getVendasHistorico() < 14) {
             return insights;
         }
 
-        Map<String, Double> faturamentoPorDiaSemana = vendas.stream()
-                .collect(Collectors.groupingBy(
-                        v -> v.getData().toLocalDate().getDayOfWeek().toString(),
-                        Collectors.summingDouble(v -> v.getQuantidade() * v.getValorUnitario())
-                ));
-
-        String melhorDia = faturamentoPorDiaSemana.entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse("N/A");
-
-        double maiorFaturamento = faturamentoPorDiaSemana.values().stream()
-                .mapToDouble(Double::doubleValue)
-                .max()
-                .orElse(0);
+        int melhorDia = -1;
+        for (int d = 0; d < 7; d++) {
+            if (resumo.getVendasDiaSemana(d) > 0
+                    && (melhorDia < 0 || resumo.getCentavosDiaSemana(d) > resumo.getCentavosDiaSemana(melhorDia))) {
+                melhorDia = d;
+            }
+        }
 
-        if (!melhorDia.equals("N/A")) {
+        if (melhorDia >= 0) {
             insights.add(new Insight(
                     TipoInsight.INFO,
                     "Melhor Dia da Semana Identificado",
                     String.format("%s é seu melhor dia com R$ %.2f em faturamento total.",
-                            traduzirDiaSemana(melhorDia), maiorFaturamento),
+                            traduzirDiaSemana(DayOfWeek.of(melhorDia + 1).toString()),
+                            resumo.getCentavosDiaSemana(melhorDia) / 100.0),
                     "Concentre esforços promocionais neste dia da semana."
             ));
         }
@@ -280,41 +522,29 @@ public class AnalyticsEngine {
         return insights;
     }
 
-    private List<Insight> analisarOportunidades(List<Venda> vendas) {
+    private List<Insight> analisarOportunidades(ResumoAnalitico resumo) {
         List<Insight> insights = new ArrayList<>();
 
-        Map<String, Long> frequenciaPorProduto = vendas.stream()
-                .collect(Collectors.groupingBy(
-                        Venda::getProduto,
-                        Collectors.counting()
-                ));
-
-        Map<String, Double> valorMedioPorProduto = vendas.stream()
-                .collect(Collectors.groupingBy(
-                        Venda::getProduto,
-                        Collectors.averagingDouble(v -> v.getQuantidade() * v.getValorUnitario())
-                ));
-
-        for (String produto : frequenciaPorProduto.keySet()) {
-            long frequencia = frequenciaPorProduto.get(produto);
-            double valorMedio = valorMedioPorProduto.get(produto);
+        int produtosUnicos = 0;
+        for (int produto = 0; produto < resumo.getTotalProdutos(); produto++) {
+            int frequencia = resumo.getVendasProduto(produto);
+            if (frequencia == 0) {
+                continue;
+            }
+            produtosUnicos++;
 
+            double valorMedio = resumo.getCentavosProduto(produto) / 100.0 / frequencia;
             if (frequencia <= 2 && valorMedio > 500) {
                 insights.add(new Insight(
                         TipoInsight.OPORTUNIDADE,
                         "Oportunidade de Produto Premium",
                         String.format("%s tem alto valor (R$ %.2f) mas baixa frequência de vendas.",
-                                produto, valorMedio),
+                                produtos.nome(produto), valorMedio),
                         "Considere campanhas específicas para este produto de alta margem."
                 ));
             }
         }
 
-        long produtosUnicos = vendas.stream()
-                .map(Venda::getProduto)
-                .distinct()
-                .count();
-
         if (produtosUnicos < 5) {
             insights.add(new Insight(
                     TipoInsight.OPORTUNIDADE,
@@ -327,19 +557,6 @@ public class AnalyticsEngine {
         return insights;
     }
 
-    private double calcularFaturamento(List<Venda> vendas) {
-        return vendas.stream()
-                .mapToDouble(v -> v.getQuantidade() * v.getValorUnitario())
-                .sum();
-    }
-
-    private double calcularDesvioPadrao(List<Double> valores, double media) {
-        double somaDiferencasQuadrado = valores.stream()
-                .mapToDouble(v -> Math.pow(v - media, 2))
-                .sum();
-        return Math.sqrt(somaDiferencasQuadrado / valores.size());
-    }
-
     private String traduzirDiaSemana(String diaIngles) {
         Map<String, String> traducao = Map.of(
                 "MONDAY", "Segunda-feira",
@@ -353,6 +570,103 @@ public class AnalyticsEngine {
         return traducao.getOrDefault(diaIngles, diaIngles);
     }
 
+    /**
+     * Analisador de insights. Recebe o resumo compartilhado (somente leitura) e pode rodar
+     * em paralelo com os demais, em qualquer thread do executor de analytics.
+     */
+    public interface Analisador {
+        String getNome();
+
+        List<Insight> analisar(ResumoAnalitico resumo);
+    }
+
+    /**
+     * Resultado de um analisador: insights gerados, tempo de parede e bytes alocados (-1 se indisponível)
+     */
+    public static class ResultadoAnalise {
+        private final String nome;
+        private final List<Insight> insights;
+        private final long tempoNs;
+        private final long bytesAlocados;
+        private final String erro;
+
+        ResultadoAnalise(String nome, List<Insight> insights, long tempoNs, long bytesAlocados, String erro) {
+            this.nome = nome;
+            this.insights = Collections.unmodifiableList(insights);
+            this.tempoNs = tempoNs;
+            this.bytesAlocados = bytesAlocados;
+            this.erro = erro;
+        }
+
+        static ResultadoAnalise esgotado(String nome, long orcamentoMs) {
+            return new ResultadoAnalise(nome, List.of(), TimeUnit.MILLISECONDS.toNanos(orcamentoMs), -1,
+                    "orçamento de " + orcamentoMs + " ms esgotado");
+        }
+
+        static ResultadoAnalise falha(String nome, Throwable e) {
+            Throwable causa = e.getCause() != null ? e.getCause() : e;
+            return new ResultadoAnalise(nome, List.of(), 0, -1, causa.toString());
+        }
+
+        public String getNome() { return nome; }
+        public List<Insight> getInsights() { return insights; }
+        public long getTempoNs() { return tempoNs; }
+        public double getTempoMs() { return tempoNs / 1_000_000.0; }
+        public long getBytesAlocados() { return bytesAlocados; }
+        public String getErro() { return erro; }
+        public boolean isConcluido() { return erro == null; }
+
+        @Override
+        public String toString() {
+            if (!isConcluido()) {
+                return String.format("%s: %s", nome, erro);
+            }
+            return String.format("%s: %d insights em %.2f ms, %s alocados", nome, insights.size(), getTempoMs(),
+                    bytesAlocados < 0 ? "? bytes" : bytesAlocados + " bytes");
+        }
+    }
+
+    private static class InsightsEmCache {
+        private final VersaoDados versao;
+        private final int hoje;
+        private final int inicioHistorico;
+        private final List<Insight> insights;
+
+        InsightsEmCache(VersaoDados versao, int hoje, int inicioHistorico, List<Insight> insights) {
+            this.versao = versao;
+            this.hoje = hoje;
+            this.inicioHistorico = inicioHistorico;
+            this.insights = List.copyOf(insights);
+        }
+
+        boolean valePara(VersaoDados versao, int hoje, int inicioHistorico) {
+            return this.versao.equals(versao) && this.hoje == hoje && this.inicioHistorico == inicioHistorico;
+        }
+    }
+
+    public static class ComparacaoPeriodos {
+        private final EstadoAnalitico.Totais atual;
+        private final EstadoAnalitico.Totais anterior;
+
+        ComparacaoPeriodos(EstadoAnalitico.Totais atual, EstadoAnalitico.Totais anterior) {
+            this.atual = atual;
+            this.anterior = anterior;
+        }
+
+        public EstadoAnalitico.Totais getAtual() { return atual; }
+        public EstadoAnalitico.Totais getAnterior() { return anterior; }
+
+        /**
+         * @return variação relativa do faturamento (0.1 = +10%), ou NaN se o período anterior não faturou
+         */
+        public double getVariacaoFaturamento() {
+            if (anterior.getCentavos() == 0) {
+                return Double.NaN;
+            }
+            return (double) (atual.getCentavos() - anterior.getCentavos()) / anterior.getCentavos();
+        }
+    }
+
     public enum TipoInsight {
         CRITICO(1),
         ALERTA(2),
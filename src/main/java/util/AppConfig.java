@@ -0,0 +1,73 @@
+package util;
+
+import io.github.cdimascio.dotenv.Dotenv;
+
+public class AppConfig {
+
+    private static final Dotenv dotenv = Dotenv.configure().ignoreIfMissing().load();
+
+    private AppConfig() {
+    }
+
+    /**
+     * Obtém um valor de configuração do arquivo .env (ou das variáveis de ambiente)
+     * @param chave nome da variável
+     * @return valor configurado ou null se ausente
+     */
+    public static String get(String chave) {
+        String valor = dotenv.get(chave);
+        return valor == null || valor.trim().isEmpty() ? null : valor.trim();
+    }
+
+    public static String get(String chave, String padrao) {
+        String valor = get(chave);
+        return valor != null ? valor : padrao;
+    }
+
+    public static int getInt(String chave, int padrao) {
+        String valor = get(chave);
+        if (valor == null) {
+            return padrao;
+        }
+        try {
+            return Integer.parseInt(valor);
+        } catch (NumberFormatException e) {
+            System.err.println("Valor inválido para " + chave + ": '" + valor + "'. Usando padrão " + padrao);
+            return padrao;
+        }
+    }
+
+    public static long getLong(String chave, long padrao) {
+        String valor = get(chave);
+        if (valor == null) {
+            return padrao;
+        }
+        try {
+            return Long.parseLong(valor);
+        } catch (NumberFormatException e) {
+            System.err.println("Valor inválido para " + chave + ": '" + valor + "'. Usando padrão " + padrao);
+            return padrao;
+        }
+    }
+
+    public static double getDouble(String chave, double padrao) {
+        String valor = get(chave);
+        if (valor == null) {
+            return padrao;
+        }
+        try {
+            return Double.parseDouble(valor);
+        } catch (NumberFormatException e) {
+            System.err.println("Valor inválido para " + chave + ": '" + valor + "'. Usando padrão " + padrao);
+            return padrao;
+        }
+    }
+
+    public static boolean getBoolean(String chave, boolean padrao) {
+        String valor = get(chave);
+        if (valor == null) {
+            return padrao;
+        }
+        return valor.equalsIgnoreCase("true") || valor.equals("1") || valor.equalsIgnoreCase("sim");
+    }
+}
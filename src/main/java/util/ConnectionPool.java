@@ -0,0 +1,349 @@
+package util;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool de conexões JDBC limitado, com validação no empréstimo e remoção de conexões ociosas.
+ * As conexões entregues são proxies: chamar close() devolve a conexão física ao pool.
+ */
+public class ConnectionPool {
+
+    private final String url;
+    private final Properties propriedades;
+    private final int tamanhoMinimo;
+    private final int tamanhoMaximo;
+    private final long tempoOciosoMaximoMs;
+    private final long tempoEsperaMaximoMs;
+    private final int tempoValidacaoSegundos;
+
+    private final LinkedBlockingDeque<ConexaoOciosa> ociosas = new LinkedBlockingDeque<>();
+    private final Semaphore permissoes;
+    private final ScheduledExecutorService limpador;
+
+    private final AtomicInteger ativas = new AtomicInteger();
+    private final AtomicInteger aguardando = new AtomicInteger();
+    private final LongAdder totalEmprestimos = new LongAdder();
+    private final LongAdder tempoTotalEsperaNanos = new LongAdder();
+    private final AtomicLong maiorEsperaNanos = new AtomicLong();
+    private final LongAdder conexoesCriadas = new LongAdder();
+    private final LongAdder conexoesDescartadas = new LongAdder();
+    private final LongAdder esgotamentos = new LongAdder();
+
+    private volatile boolean fechado = false;
+
+    public ConnectionPool(String url, Properties propriedades, int tamanhoMinimo, int tamanhoMaximo,
+                          long tempoOciosoMaximoMs, long tempoEsperaMaximoMs, int tempoValidacaoSegundos) {
+        if (tamanhoMaximo <= 0) {
+            throw new IllegalArgumentException("Tamanho máximo do pool deve ser maior que zero");
+        }
+        this.url = url;
+        this.propriedades = propriedades;
+        this.tamanhoMaximo = tamanhoMaximo;
+        this.tamanhoMinimo = Math.max(0, Math.min(tamanhoMinimo, tamanhoMaximo));
+        this.tempoOciosoMaximoMs = tempoOciosoMaximoMs;
+        this.tempoEsperaMaximoMs = tempoEsperaMaximoMs;
+        this.tempoValidacaoSegundos = tempoValidacaoSegundos;
+        this.permissoes = new Semaphore(tamanhoMaximo, true);
+
+        this.limpador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pool-conexoes-limpeza");
+            t.setDaemon(true);
+            return t;
+        });
+        long intervalo = Math.max(1000, tempoOciosoMaximoMs / 2);
+        limpador.scheduleWithFixedDelay(this::removerOciosas, intervalo, intervalo, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Abre as conexões mínimas configuradas. Falhas são apenas registradas,
+     * pois o pool cria conexões sob demanda.
+     */
+    public void preencher() {
+        for (int i = ociosas.size(); i < tamanhoMinimo; i++) {
+            if (!permissoes.tryAcquire()) {
+                return;
+            }
+            try {
+                ociosas.offerLast(new ConexaoOciosa(criarConexaoFisica()));
+            } catch (SQLException e) {
+                System.err.println("Erro ao pré-abrir conexões do pool: " + e.getMessage());
+                return;
+            } finally {
+                permissoes.release();
+            }
+        }
+    }
+
+    /**
+     * Empresta uma conexão do pool, aguardando no máximo o tempo configurado
+     * @return Connection que deve ser fechada para retornar ao pool
+     * @throws SQLException se o pool estiver esgotado ou a conexão não puder ser criada
+     */
+    public Connection emprestar() throws SQLException {
+        if (fechado) {
+            throw new SQLException("Pool de conexões já foi encerrado");
+        }
+
+        long inicio = System.nanoTime();
+        aguardando.incrementAndGet();
+        boolean obteve;
+        try {
+            obteve = permissoes.tryAcquire(tempoEsperaMaximoMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrompido aguardando conexão do pool");
+        } finally {
+            aguardando.decrementAndGet();
+        }
+
+        if (!obteve) {
+            esgotamentos.increment();
+            throw new SQLException("Tempo esgotado aguardando conexão do pool (" + tempoEsperaMaximoMs
+                    + " ms, máximo " + tamanhoMaximo + " conexões ativas)");
+        }
+
+        try {
+            Connection fisica = obterConexaoValida();
+            ativas.incrementAndGet();
+            registrarEspera(System.nanoTime() - inicio);
+            return criarProxy(fisica);
+        } catch (SQLException | RuntimeException e) {
+            permissoes.release();
+            throw e;
+        }
+    }
+
+    private Connection obterConexaoValida() throws SQLException {
+        ConexaoOciosa ociosa;
+        while ((ociosa = ociosas.pollFirst()) != null) {
+            if (validar(ociosa.conexao)) {
+                return ociosa.conexao;
+            }
+            descartar(ociosa.conexao);
+        }
+        return criarConexaoFisica();
+    }
+
+    private boolean validar(Connection conexao) {
+        try {
+            return !conexao.isClosed() && conexao.isValid(tempoValidacaoSegundos);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection criarConexaoFisica() throws SQLException {
+        Connection conexao = DriverManager.getConnection(url, propriedades);
+        conexao.setAutoCommit(true);
+        conexoesCriadas.increment();
+        return conexao;
+    }
+
+    private void devolver(Connection fisica) {
+        ativas.decrementAndGet();
+        try {
+            if (fechado || fisica.isClosed()) {
+                descartar(fisica);
+                return;
+            }
+            if (!fisica.getAutoCommit()) {
+                fisica.rollback();
+                fisica.setAutoCommit(true);
+            }
+            if (fisica.isReadOnly()) {
+                fisica.setReadOnly(false);
+            }
+            fisica.clearWarnings();
+            ociosas.offerFirst(new ConexaoOciosa(fisica));
+        } catch (SQLException e) {
+            descartar(fisica);
+        } finally {
+            permissoes.release();
+        }
+    }
+
+    private void descartar(Connection fisica) {
+        conexoesDescartadas.increment();
+        try {
+            fisica.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    private void removerOciosas() {
+        long limite = System.currentTimeMillis() - tempoOciosoMaximoMs;
+        Iterator<ConexaoOciosa> it = ociosas.descendingIterator();
+        while (it.hasNext() && ociosas.size() > tamanhoMinimo) {
+            ConexaoOciosa ociosa = it.next();
+            if (ociosa.ociosaDesde < limite && ociosas.remove(ociosa)) {
+                descartar(ociosa.conexao);
+            }
+        }
+    }
+
+    private void registrarEspera(long nanos) {
+        totalEmprestimos.increment();
+        tempoTotalEsperaNanos.add(nanos);
+        maiorEsperaNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private Connection criarProxy(Connection fisica) {
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                new ConexaoEmprestada(fisica));
+    }
+
+    /**
+     * Encerra o pool e fecha todas as conexões ociosas.
+     * Conexões emprestadas são fechadas quando devolvidas.
+     */
+    public void fechar() {
+        fechado = true;
+        limpador.shutdownNow();
+        List<ConexaoOciosa> restantes = new ArrayList<>();
+        ociosas.drainTo(restantes);
+        for (ConexaoOciosa ociosa : restantes) {
+            descartar(ociosa.conexao);
+        }
+    }
+
+    public PoolStats getEstatisticas() {
+        long emprestimos = totalEmprestimos.sum();
+        double mediaMs = emprestimos == 0 ? 0.0 : tempoTotalEsperaNanos.sum() / (double) emprestimos / 1_000_000.0;
+        return new PoolStats(
+                ativas.get(),
+                ociosas.size(),
+                aguardando.get(),
+                tamanhoMinimo,
+                tamanhoMaximo,
+                emprestimos,
+                mediaMs,
+                maiorEsperaNanos.get() / 1_000_000.0,
+                conexoesCriadas.sum(),
+                conexoesDescartadas.sum(),
+                esgotamentos.sum()
+        );
+    }
+
+    private static class ConexaoOciosa {
+        private final Connection conexao;
+        private final long ociosaDesde;
+
+        ConexaoOciosa(Connection conexao) {
+            this.conexao = conexao;
+            this.ociosaDesde = System.currentTimeMillis();
+        }
+    }
+
+    private class ConexaoEmprestada implements InvocationHandler {
+        private Connection fisica;
+
+        ConexaoEmprestada(Connection fisica) {
+            this.fisica = fisica;
+        }
+
+        @Override
+        public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (fisica != null) {
+                        Connection conexao = fisica;
+                        fisica = null;
+                        devolver(conexao);
+                    }
+                    return null;
+                case "isClosed":
+                    return fisica == null || fisica.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "ConexaoPool[" + fisica + "]";
+                default:
+                    break;
+            }
+
+            if (fisica == null) {
+                throw new SQLException("Conexão já foi devolvida ao pool");
+            }
+            try {
+                return method.invoke(fisica, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+
+    public static class PoolStats {
+        private final int ativas;
+        private final int ociosas;
+        private final int aguardando;
+        private final int tamanhoMinimo;
+        private final int tamanhoMaximo;
+        private final long totalEmprestimos;
+        private final double esperaMediaMs;
+        private final double esperaMaximaMs;
+        private final long conexoesCriadas;
+        private final long conexoesDescartadas;
+        private final long esgotamentos;
+
+        public PoolStats(int ativas, int ociosas, int aguardando, int tamanhoMinimo, int tamanhoMaximo,
+                         long totalEmprestimos, double esperaMediaMs, double esperaMaximaMs,
+                         long conexoesCriadas, long conexoesDescartadas, long esgotamentos) {
+            this.ativas = ativas;
+            this.ociosas = ociosas;
+            this.aguardando = aguardando;
+            this.tamanhoMinimo = tamanhoMinimo;
+            this.tamanhoMaximo = tamanhoMaximo;
+            this.totalEmprestimos = totalEmprestimos;
+            this.esperaMediaMs = esperaMediaMs;
+            this.esperaMaximaMs = esperaMaximaMs;
+            this.conexoesCriadas = conexoesCriadas;
+            this.conexoesDescartadas = conexoesDescartadas;
+            this.esgotamentos = esgotamentos;
+        }
+
+        public int getAtivas() { return ativas; }
+        public int getOciosas() { return ociosas; }
+        public int getAguardando() { return aguardando; }
+        public int getTamanhoMinimo() { return tamanhoMinimo; }
+        public int getTamanhoMaximo() { return tamanhoMaximo; }
+        public long getTotalEmprestimos() { return totalEmprestimos; }
+        public double getEsperaMediaMs() { return esperaMediaMs; }
+        public double getEsperaMaximaMs() { return esperaMaximaMs; }
+        public long getConexoesCriadas() { return conexoesCriadas; }
+        public long getConexoesDescartadas() { return conexoesDescartadas; }
+        public long getEsgotamentos() { return esgotamentos; }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "Pool [min %d, máx %d]: %d ativas, %d ociosas, %d aguardando | " +
+                            "%d empréstimos, espera média %.3f ms, máxima %.3f ms | " +
+                            "%d criadas, %d descartadas, %d esgotamentos",
+                    tamanhoMinimo, tamanhoMaximo, ativas, ociosas, aguardando,
+                    totalEmprestimos, esperaMediaMs, esperaMaximaMs,
+                    conexoesCriadas, conexoesDescartadas, esgotamentos);
+        }
+    }
+}
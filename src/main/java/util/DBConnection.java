@@ -1,20 +1,26 @@
 package util;
 
-import io.github.cdimascio.dotenv.Dotenv;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Properties;
 
 public class DBConnection {
 
-    private static final Dotenv dotenv = Dotenv.load();
+    private static final String URL = AppConfig.get("DB_URL");
+    private static final String USER = AppConfig.get("DB_USER");
+    private static final String PASSWORD = AppConfig.get("DB_PASSWORD");
 
-    private static final String URL = dotenv.get("DB_URL");
-    private static final String USER = dotenv.get("DB_USER");
-    private static final String PASSWORD = dotenv.get("DB_PASSWORD");
+    private static final int POOL_MIN = AppConfig.getInt("DB_POOL_MIN", 2);
+    private static final int POOL_MAX = AppConfig.getInt("DB_POOL_MAX", 10);
+    private static final long POOL_IDLE_TIMEOUT_MS = AppConfig.getLong("DB_POOL_IDLE_TIMEOUT_MS", 300_000L);
+    private static final long POOL_BORROW_TIMEOUT_MS = AppConfig.getLong("DB_POOL_BORROW_TIMEOUT_MS", 5_000L);
+    private static final int POOL_VALIDATION_TIMEOUT_S = AppConfig.getInt("DB_POOL_VALIDATION_TIMEOUT_S", 2);
+
+    private static volatile ConnectionPool pool;
 
     /**
-     * Obtém uma conexão com o banco de dados
+     * Obtém uma conexão do pool compartilhado.
+     * Fechar a conexão (try-with-resources) a devolve ao pool.
      * @return Connection objeto de conexão
      * @throws SQLException se houver erro na conexão
      */
@@ -23,14 +29,59 @@ public class DBConnection {
             throw new SQLException("As variáveis de ambiente DB_URL, DB_USER, ou DB_PASSWORD não foram encontradas no arquivo .env");
         }
         try {
-            Class.forName("com.mysql.cj.jdbc.Driver");
-            Connection connection = DriverManager.getConnection(URL, USER, PASSWORD);
-            connection.setAutoCommit(true);
-            return connection;
-        } catch (ClassNotFoundException e) {
-            throw new SQLException("Driver MySQL não encontrado: " + e.getMessage());
+            return getPool().emprestar();
         } catch (SQLException e) {
-            throw new SQLException("Erro ao conectar com o banco de dados: " + e.getMessage());
+            throw new SQLException("Erro ao conectar com o banco de dados: " + e.getMessage(), e.getSQLState(), e);
+        }
+    }
+
+    private static ConnectionPool getPool() throws SQLException {
+        ConnectionPool atual = pool;
+        if (atual != null) {
+            return atual;
+        }
+        synchronized (DBConnection.class) {
+            if (pool == null) {
+                try {
+                    Class.forName("com.mysql.cj.jdbc.Driver");
+                } catch (ClassNotFoundException e) {
+                    throw new SQLException("Driver MySQL não encontrado: " + e.getMessage());
+                }
+
+                Properties propriedades = new Properties();
+                propriedades.setProperty("user", USER);
+                propriedades.setProperty("password", PASSWORD);
+                // Permite ao driver reescrever executeBatch como um único INSERT multi-valores
+                propriedades.setProperty("rewriteBatchedStatements", "true");
+
+                ConnectionPool novoPool = new ConnectionPool(URL, propriedades, POOL_MIN, POOL_MAX,
+                        POOL_IDLE_TIMEOUT_MS, POOL_BORROW_TIMEOUT_MS, POOL_VALIDATION_TIMEOUT_S);
+                novoPool.preencher();
+                Runtime.getRuntime().addShutdownHook(new Thread(novoPool::fechar, "pool-conexoes-shutdown"));
+                pool = novoPool;
+            }
+            return pool;
+        }
+    }
+
+    /**
+     * Obtém as estatísticas do pool (ativas, ociosas, aguardando, latência de empréstimo)
+     * @return PoolStats ou null se o pool ainda não foi inicializado
+     */
+    public static ConnectionPool.PoolStats getEstatisticasPool() {
+        ConnectionPool atual = pool;
+        return atual != null ? atual.getEstatisticas() : null;
+    }
+
+    /**
+     * Encerra o pool e fecha as conexões ociosas
+     */
+    public static void fecharPool() {
+        synchronized (DBConnection.class) {
+            if (pool != null) {
+                pool.fechar();
+                pool = null;
+            }
         }
     }
 
@@ -69,7 +120,7 @@ public class DBConnection {
     }
 
     /**
-     * Fecha uma conexão de forma segura
+     * Fecha uma conexão de forma segura (conexões do pool são devolvidas a ele)
      * @param connection conexão a ser fechada
      */
     public static void closeConnection(Connection connection) {
@@ -107,6 +158,8 @@ public class DBConnection {
                     }
                 }
 
+                System.out.println("\n" + getEstatisticasPool());
+
             } else {
                 System.out.println("❌ Falha na conexão!");
                 System.out.println("\nVerifique:");
@@ -1,17 +1,30 @@
 package util;
 
+import model.ProdutoDicionario;
 import model.Venda;
 import controller.VendaController;
+import dao.VendaBatchWriter;
+import listener.VendaEventBus;
 
 import java.io.*;
 import java.nio.file.Files;
 import java.sql.Date;
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.regex.Pattern;
-import java.util.regex.Matcher;
 
 public class DataImporter {
 
@@ -19,10 +32,7 @@ public class DataImporter {
     private final List<ImportError> errors;
     private final List<ImportWarning> warnings;
 
-    private static final Pattern DECIMAL_PATTERN = Pattern.compile("\\d+([.,]\\d{1,2})?");
     private static final Pattern INTEGER_PATTERN = Pattern.compile("\\d+");
-    private static final Pattern MONEY_PATTERN = Pattern.compile("R\\$?\\s*([0-9]+(?:[.,][0-9]{2})?)");
-    private static final Pattern QUANTITY_PATTERN = Pattern.compile("(\\d+)\\s*(?:unidades?|un|x|vezes)?");
 
     private static final List<DateTimeFormatter> DATE_FORMATTERS = Arrays.asList(
             DateTimeFormatter.ofPattern("dd/MM/yyyy"),
@@ -32,13 +42,58 @@ public class DataImporter {
             DateTimeFormatter.ISO_LOCAL_DATE
     );
 
+    private static final int TAMANHO_LOTE = Math.max(1, AppConfig.getInt("IMPORT_TAMANHO_LOTE",
+            AppConfig.getInt("DB_BATCH_SIZE", 1000)));
+    private static final int INTERVALO_COMMIT = Math.max(0, AppConfig.getInt("IMPORT_INTERVALO_COMMIT", 10000));
+    private static final int THREADS_IMPORTACAO = Math.max(1, AppConfig.getInt("IMPORT_THREADS",
+            Math.max(1, Runtime.getRuntime().availableProcessors() - 1)));
+    private static final int LINHAS_POR_BLOCO = 256;
+    // Limite de linhas lidas procurando as datas da amostra antes de liberar os workers
+    private static final int LINHAS_AMOSTRA_DATA = LINHAS_POR_BLOCO * 4;
+    // Os arquivos são lidos em fluxo (CSV mapeado em janelas), então por padrão não há limite de tamanho
+    private static final long TAMANHO_MAXIMO_MB = Math.max(0, AppConfig.getInt("IMPORT_TAMANHO_MAXIMO_MB", 0));
+    private static final int BLOCOS_EM_VOO = THREADS_IMPORTACAO * 4;
+
+    private final VendaEventBus eventBus = VendaEventBus.getInstancia();
+    private final ProdutoDicionario produtos = ProdutoDicionario.getInstancia();
+
+    private boolean tudoOuNada = AppConfig.getBoolean("IMPORT_TUDO_OU_NADA", false);
+    private int gravadasAntesDaFalha = 0;
+    // Formato de data do arquivo em importação; detectado pela leitura antes de qualquer linha ser interpretada
+    private volatile DetectorFormatoData formatoData = new DetectorFormatoData();
+
     public DataImporter() {
         this.vendaController = new VendaController();
-        this.errors = new ArrayList<>();
-        this.warnings = new ArrayList<>();
+        // Preenchidas em paralelo pelos workers do pipeline e ordenadas por linha ao final
+        this.errors = Collections.synchronizedList(new ArrayList<>());
+        this.warnings = Collections.synchronizedList(new ArrayList<>());
+    }
+
+    /**
+     * @param tudoOuNada true para gravar a importação em uma única transação, desfeita se qualquer linha falhar
+     */
+    public void setTudoOuNada(boolean tudoOuNada) {
+        this.tudoOuNada = tudoOuNada;
     }
 
+    public boolean isTudoOuNada() {
+        return tudoOuNada;
+    }
+
+    /**
+     * As importações rodam dentro de um lote do VendaEventBus: os listeners recebem
+     * um único evento com todas as vendas importadas, e não um por linha
+     */
     public ImportResult importFromCSV(File csvFile) {
+        VendaEventBus.Lote lote = eventBus.abrirLote("CSV");
+        try {
+            return importarCSV(csvFile);
+        } finally {
+            lote.close();
+        }
+    }
+
+    private ImportResult importarCSV(File csvFile) {
         clearErrorsAndWarnings();
         System.out.println(" Iniciando importação CSV: " + csvFile.getAbsolutePath());
 
@@ -46,175 +101,447 @@ public class DataImporter {
             return new ImportResult(false, 0, 0, errors, warnings);
         }
 
-        List<Venda> vendasImportadas = new ArrayList<>();
-        int lineNumber = 0;
-        int successCount = 0;
-        int errorCount = 0;
-
-        try (BufferedReader reader = Files.newBufferedReader(csvFile.toPath())) {
-            String line;
-            boolean isFirstLine = true;
-            String[] headers = null;
+        try (LeitorCSVMapeado leitor = new LeitorCSVMapeado(csvFile.toPath())) {
+            // O cabeçalho é lido e validado antes de abrir a gravação e o pipeline
+            LeitorCSVMapeado.Linha cabecalho;
+            do {
+                cabecalho = leitor.proxima();
+            } while (cabecalho != null && cabecalho.isVazia());
+            if (cabecalho == null) {
+                return new ImportResult(true, 0, 0, errors, warnings);
+            }
 
-            while ((line = reader.readLine()) != null) {
-                lineNumber++;
-                line = line.trim();
+            String[] headers = cabecalho.campos().textos();
+            System.out.println(" Cabeçalhos encontrados: " + Arrays.toString(headers));
+            if (!validateHeaders(headers)) {
+                addError(cabecalho.getNumero(), "Cabeçalhos inválidos. Esperado: produto,quantidade,valor_unitario,data");
+                System.err.println(" Cabeçalhos inválidos");
+                return new ImportResult(false, 0, 0, errors, warnings);
+            }
 
-                if (line.isEmpty()) {
-                    continue;
-                }
+            try (GravadorImportacao gravador = new GravadorImportacao()) {
+                int errorCount = processarLinhas(linhasCSV(leitor), true, this::dataDoCSV,
+                        (linha, numero) -> parseVendaFromCSV(linha.campos(), numero), gravador);
+                return gravador.concluir("CSV", errorCount);
+            }
 
-                if (isFirstLine) {
-                    headers = parseCSVLine(line);
-                    System.out.println(" Cabeçalhos encontrados: " + Arrays.toString(headers));
+        } catch (IOException e) {
+            addError(0, "Erro ao ler arquivo: " + e.getMessage());
+            System.err.println(" Erro de E/S: " + e.getMessage());
+            return new ImportResult(false, 0, 0, errors, warnings);
+        } catch (SQLException e) {
+            return falhaGravacao("CSV", e);
+        }
+    }
 
-                    if (!validateHeaders(headers)) {
-                        addError(lineNumber, "Cabeçalhos inválidos. Esperado: produto,quantidade,valor_unitario,data");
-                        System.err.println(" Cabeçalhos inválidos");
-                        return new ImportResult(false, 0, 0, errors, warnings);
-                    }
-                    isFirstLine = false;
-                    continue;
-                }
+    public ImportResult importFromTextFile(File textFile) {
+        VendaEventBus.Lote lote = eventBus.abrirLote("TXT");
+        try {
+            return importarTexto(textFile);
+        } finally {
+            lote.close();
+        }
+    }
 
-                try {
-                    String[] values = parseCSVLine(line);
-                    System.out.println(" Processando linha " + lineNumber + ": " + Arrays.toString(values));
+    private ImportResult importarTexto(File textFile) {
+        clearErrorsAndWarnings();
+        System.out.println(" Iniciando importação TXT: " + textFile.getAbsolutePath());
 
-                    Venda venda = parseVendaFromCSV(values, lineNumber);
+        if (!validateFile(textFile, ".txt")) {
+            return new ImportResult(false, 0, 0, errors, warnings);
+        }
 
-                    if (venda != null) {
-                        vendaController.salvarVenda(venda);
-                        vendasImportadas.add(venda);
-                        successCount++;
-                        System.out.println(" Venda salva: " + venda.getProduto());
-                    } else {
-                        errorCount++;
-                    }
-                } catch (Exception e) {
-                    addError(lineNumber, "Erro ao processar linha: " + e.getMessage());
-                    errorCount++;
-                    System.err.println(" Erro na linha " + lineNumber + ": " + e.getMessage());
-                }
-            }
+        try (BufferedReader reader = Files.newBufferedReader(textFile.toPath());
+             GravadorImportacao gravador = new GravadorImportacao()) {
+            int errorCount = processarLinhas(linhasTexto(reader,
+                    line -> line.isEmpty() || line.startsWith("#") || line.startsWith("//")), true,
+                    this::dataDoTexto, this::parseVendaFromText, gravador);
+            return gravador.concluir("TXT", errorCount);
 
         } catch (IOException e) {
             addError(0, "Erro ao ler arquivo: " + e.getMessage());
-            System.err.println(" Erro de E/S: " + e.getMessage());
             return new ImportResult(false, 0, 0, errors, warnings);
+        } catch (SQLException e) {
+            return falhaGravacao("TXT", e);
         }
+    }
 
-        System.out.println(" Importação CSV concluída: " + successCount + " sucessos, " + errorCount + " erros");
-        return new ImportResult(true, successCount, errorCount, errors, warnings);
+    public ImportResult importFromWhatsApp(String whatsappText) {
+        VendaEventBus.Lote lote = eventBus.abrirLote("WhatsApp");
+        try {
+            return importarWhatsApp(whatsappText);
+        } finally {
+            lote.close();
+        }
     }
 
-    public ImportResult importFromTextFile(File textFile) {
+    private ImportResult importarWhatsApp(String whatsappText) {
         clearErrorsAndWarnings();
-        System.out.println(" Iniciando importação TXT: " + textFile.getAbsolutePath());
+        System.out.println(" Iniciando importação WhatsApp");
 
-        if (!validateFile(textFile, ".txt")) {
+        if (whatsappText == null || whatsappText.trim().isEmpty()) {
+            addError(0, "Texto do WhatsApp está vazio");
             return new ImportResult(false, 0, 0, errors, warnings);
         }
 
-        List<Venda> vendasImportadas = new ArrayList<>();
-        int lineNumber = 0;
-        int successCount = 0;
-        int errorCount = 0;
+        try (BufferedReader reader = new BufferedReader(new StringReader(whatsappText));
+             GravadorImportacao gravador = new GravadorImportacao()) {
+            int errorCount = processarLinhas(linhasTexto(reader,
+                    line -> line.isEmpty() || line.startsWith("DICA:") || line.startsWith("-")), false,
+                    null, this::parseVendaFromWhatsApp, gravador);
+            return gravador.concluir("WhatsApp", errorCount);
+
+        } catch (IOException e) {
+            addError(0, "Erro ao ler texto: " + e.getMessage());
+            return new ImportResult(false, 0, 0, errors, warnings);
+        } catch (SQLException e) {
+            return falhaGravacao("WhatsApp", e);
+        }
+    }
 
-        try (BufferedReader reader = Files.newBufferedReader(textFile.toPath())) {
-            String line;
+    /**
+     * Pipeline de importação: esta thread lê as linhas em blocos, THREADS_IMPORTACAO workers interpretam
+     * e validam os blocos em paralelo e esta mesma thread grava as vendas, na ordem do arquivo, pelo gravador.
+     * As filas são limitadas e no máximo BLOCOS_EM_VOO blocos ficam entre a leitura e a gravação,
+     * então a leitura espera quando a gravação (o banco) não acompanha.
+     * @param fonte linhas a interpretar, já sem as ignoradas
+     * @param nuloEhErro true se o interpretador devolver null conta como linha com erro
+     * @param dataDaLinha texto da data de uma linha (ou null), para detectar o formato de data do arquivo
+     *                    antes de interpretar qualquer linha; null se a origem não tiver datas a detectar
+     * @return quantidade de linhas com erro de interpretação ou validação
+     */
+    private <L> int processarLinhas(FonteLinhas<L> fonte, boolean nuloEhErro, Function<L, CharSequence> dataDaLinha,
+                                    InterpretadorLinha<L> interpretador, GravadorImportacao gravador)
+            throws IOException, SQLException {
+        int workers = THREADS_IMPORTACAO;
+        BlockingQueue<Bloco<L>> paraInterpretar = new ArrayBlockingQueue<>(workers * 2);
+        BlockingQueue<Bloco<L>> paraGravar = new ArrayBlockingQueue<>(workers * 2);
+        Semaphore blocosEmVoo = new Semaphore(BLOCOS_EM_VOO);
+        AtomicInteger contador = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(workers + 1, r -> {
+            Thread t = new Thread(r, "importacao-" + contador.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
 
-            while ((line = reader.readLine()) != null) {
-                lineNumber++;
-                line = line.trim();
+        try {
+            Future<?> leitura = executor.submit(() -> {
+                lerBlocos(fonte, dataDaLinha, paraInterpretar, blocosEmVoo);
+                return null;
+            });
+            for (int i = 0; i < workers; i++) {
+                executor.submit(() -> {
+                    interpretarBlocos(paraInterpretar, paraGravar, interpretador, nuloEhErro);
+                    return null;
+                });
+            }
 
-                if (line.isEmpty() || line.startsWith("#") || line.startsWith("//")) {
+            int errorCount = 0;
+            int finalizados = 0;
+            long proximo = 0;
+            Map<Long, Bloco<L>> foraDeOrdem = new HashMap<>();
+            while (finalizados < workers) {
+                Bloco<L> bloco = paraGravar.take();
+                if (bloco == Bloco.FIM) {
+                    finalizados++;
                     continue;
                 }
+                foraDeOrdem.put(bloco.sequencia, bloco);
+                while ((bloco = foraDeOrdem.remove(proximo)) != null) {
+                    errorCount += bloco.erros;
+                    for (int i = 0; i < bloco.vendas.size(); i++) {
+                        if (bloco.vendas.get(i) != null) {
+                            gravador.adicionar(bloco.vendas.get(i), bloco.numeros[i]);
+                        }
+                    }
+                    blocosEmVoo.release();
+                    proximo++;
+                }
+            }
+            leitura.get();
+            return errorCount;
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Importação interrompida", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Falha na leitura: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 
-                try {
-                    Venda venda = parseVendaFromText(line, lineNumber);
+    /**
+     * Enquanto o formato de data não é detectado, os blocos lidos ficam retidos aqui; nenhum worker
+     * interpreta uma linha antes de {@link #formatoData} estar definido para o arquivo inteiro
+     */
+    private <L> void lerBlocos(FonteLinhas<L> fonte, Function<L, CharSequence> dataDaLinha,
+                               BlockingQueue<Bloco<L>> paraInterpretar, Semaphore blocosEmVoo)
+            throws IOException, InterruptedException {
+        try {
+            List<CharSequence> amostra = new ArrayList<>(DetectorFormatoData.AMOSTRA);
+            List<Bloco<L>> retidos = new ArrayList<>();
+            boolean detectado = dataDaLinha == null;
+            int lidas = 0;
+
+            long sequencia = 0;
+            Bloco<L> bloco = new Bloco<>(sequencia++);
+            L linha;
+            while ((linha = fonte.proxima()) != null) {
+                if (!detectado) {
+                    CharSequence data = dataDaLinha.apply(linha);
+                    if (data != null) {
+                        amostra.add(data);
+                    }
+                    lidas++;
+                }
+                bloco.adicionar(linha, fonte.getNumero());
+                if (bloco.linhas.size() == LINHAS_POR_BLOCO) {
+                    if (detectado) {
+                        enviarBloco(bloco, paraInterpretar, blocosEmVoo);
+                    } else {
+                        retidos.add(bloco);
+                    }
+                    bloco = new Bloco<>(sequencia++);
+                }
+                if (!detectado && (amostra.size() >= DetectorFormatoData.AMOSTRA || lidas >= LINHAS_AMOSTRA_DATA)) {
+                    detectado = true;
+                    liberarRetidos(amostra, retidos, paraInterpretar, blocosEmVoo);
+                }
+            }
+            if (!detectado) {
+                liberarRetidos(amostra, retidos, paraInterpretar, blocosEmVoo);
+            }
+            if (!bloco.linhas.isEmpty()) {
+                enviarBloco(bloco, paraInterpretar, blocosEmVoo);
+            }
+        } finally {
+            // Um FIM por worker, mesmo após erro de leitura, para a gravação não esperar para sempre
+            for (int i = 0; i < THREADS_IMPORTACAO; i++) {
+                paraInterpretar.put(Bloco.fim());
+            }
+        }
+    }
+
+    private <L> void liberarRetidos(List<CharSequence> amostra, List<Bloco<L>> retidos,
+                                    BlockingQueue<Bloco<L>> paraInterpretar, Semaphore blocosEmVoo)
+            throws InterruptedException {
+        // A fila entrega o bloco com happens-before, então os workers enxergam o formato detectado
+        formatoData = DetectorFormatoData.detectar(amostra);
+        amostra.clear();
+        for (Bloco<L> retido : retidos) {
+            enviarBloco(retido, paraInterpretar, blocosEmVoo);
+        }
+        retidos.clear();
+    }
+
+    private static <L> void enviarBloco(Bloco<L> bloco, BlockingQueue<Bloco<L>> paraInterpretar, Semaphore blocosEmVoo)
+            throws InterruptedException {
+        blocosEmVoo.acquire();
+        paraInterpretar.put(bloco);
+    }
 
+    private <L> void interpretarBlocos(BlockingQueue<Bloco<L>> paraInterpretar, BlockingQueue<Bloco<L>> paraGravar,
+                                       InterpretadorLinha<L> interpretador, boolean nuloEhErro) throws InterruptedException {
+        while (true) {
+            Bloco<L> bloco = paraInterpretar.take();
+            if (bloco == Bloco.FIM) {
+                paraGravar.put(bloco);
+                return;
+            }
+            for (int i = 0; i < bloco.linhas.size(); i++) {
+                int lineNumber = bloco.numeros[i];
+                Venda venda = null;
+                try {
+                    venda = interpretador.interpretar(bloco.linhas.get(i), lineNumber);
                     if (venda != null) {
-                        vendaController.salvarVenda(venda);
-                        vendasImportadas.add(venda);
-                        successCount++;
-                        System.out.println(" Venda TXT salva: " + venda.getProduto());
-                    } else {
-                        errorCount++;
+                        vendaController.validarVenda(venda);
+                    } else if (nuloEhErro) {
+                        bloco.erros++;
                     }
                 } catch (Exception e) {
                     addError(lineNumber, "Erro ao processar linha: " + e.getMessage());
-                    errorCount++;
-                    System.err.println(" Erro TXT na linha " + lineNumber + ": " + e.getMessage());
+                    bloco.erros++;
+                    venda = null;
                 }
+                bloco.vendas.add(venda);
             }
-
-        } catch (IOException e) {
-            addError(0, "Erro ao ler arquivo: " + e.getMessage());
-            return new ImportResult(false, 0, 0, errors, warnings);
+            paraGravar.put(bloco);
         }
+    }
+
+    /**
+     * Linhas de texto sem espaços nas pontas, numeradas a partir de 1, pulando as que {@code ignorar} aceitar
+     */
+    private static FonteLinhas<String> linhasTexto(BufferedReader reader, Predicate<String> ignorar) {
+        return new FonteLinhas<String>() {
+            private int lineNumber = 0;
+
+            @Override
+            public String proxima() throws IOException {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    lineNumber++;
+                    line = line.trim();
+                    if (!ignorar.test(line)) {
+                        return line;
+                    }
+                }
+                return null;
+            }
 
-        System.out.println(" Importação TXT concluída: " + successCount + " sucessos, " + errorCount + " erros");
-        return new ImportResult(true, successCount, errorCount, errors, warnings);
+            @Override
+            public int getNumero() { return lineNumber; }
+        };
     }
 
-    public ImportResult importFromWhatsApp(String whatsappText) {
-        clearErrorsAndWarnings();
-        System.out.println(" Iniciando importação WhatsApp");
+    /**
+     * Linhas não vazias do CSV mapeado; a tokenização dos campos fica para os workers
+     */
+    private static FonteLinhas<LeitorCSVMapeado.Linha> linhasCSV(LeitorCSVMapeado leitor) {
+        return new FonteLinhas<LeitorCSVMapeado.Linha>() {
+            private int lineNumber = 0;
+
+            @Override
+            public LeitorCSVMapeado.Linha proxima() throws IOException {
+                LeitorCSVMapeado.Linha linha;
+                while ((linha = leitor.proxima()) != null) {
+                    if (!linha.isVazia()) {
+                        lineNumber = linha.getNumero();
+                        return linha;
+                    }
+                }
+                return null;
+            }
 
-        if (whatsappText == null || whatsappText.trim().isEmpty()) {
-            addError(0, "Texto do WhatsApp está vazio");
-            return new ImportResult(false, 0, 0, errors, warnings);
+            @Override
+            public int getNumero() { return lineNumber; }
+        };
+    }
+
+    private interface FonteLinhas<L> {
+        /**
+         * @return próxima linha a interpretar, ou null no fim
+         */
+        L proxima() throws IOException;
+
+        /**
+         * @return número (no arquivo) da última linha devolvida por {@link #proxima()}
+         */
+        int getNumero();
+    }
+
+    @FunctionalInterface
+    private interface InterpretadorLinha<L> {
+        Venda interpretar(L linha, int lineNumber);
+    }
+
+    /**
+     * Linhas consecutivas do arquivo; os workers preenchem vendas e erros, e a gravação reordena pela sequência
+     */
+    private static class Bloco<L> {
+        static final Bloco<?> FIM = new Bloco<>(-1);
+
+        final long sequencia;
+        final List<L> linhas = new ArrayList<>(LINHAS_POR_BLOCO);
+        final int[] numeros = new int[LINHAS_POR_BLOCO];
+        final List<Venda> vendas = new ArrayList<>(LINHAS_POR_BLOCO);
+        int erros = 0;
+
+        Bloco(long sequencia) {
+            this.sequencia = sequencia;
         }
 
-        List<Venda> vendasImportadas = new ArrayList<>();
-        String[] lines = whatsappText.split("\n");
-        int lineNumber = 0;
-        int successCount = 0;
-        int errorCount = 0;
+        void adicionar(L linha, int lineNumber) {
+            numeros[linhas.size()] = lineNumber;
+            linhas.add(linha);
+        }
 
-        for (String line : lines) {
-            lineNumber++;
-            line = line.trim();
+        @SuppressWarnings("unchecked")
+        static <L> Bloco<L> fim() {
+            return (Bloco<L>) FIM;
+        }
+    }
+
+    private ImportResult falhaGravacao(String origem, SQLException e) {
+        addError(0, "Erro ao gravar vendas no banco: " + e.getMessage());
+        System.err.println(" Importação " + origem + " interrompida: " + e.getMessage());
+        ordenarDiagnosticos();
+        return new ImportResult(false, gravadasAntesDaFalha, errors.size(), errors, warnings);
+    }
+
+    /**
+     * Acumula as vendas validadas em lotes gravados por um único VendaBatchWriter (uma conexão do pool).
+     * Fora do modo tudo ou nada a transação é confirmada a cada IMPORT_INTERVALO_COMMIT linhas;
+     * no modo tudo ou nada há uma única transação, desfeita se alguma linha tiver erro.
+     * Linhas recusadas pelo banco são isoladas por savepoints e viram erros da importação.
+     */
+    private class GravadorImportacao implements AutoCloseable {
+        private final VendaBatchWriter writer;
+
+        GravadorImportacao() throws SQLException {
+            gravadasAntesDaFalha = 0;
+            this.writer = vendaController.abrirLoteImportacao(TAMANHO_LOTE, tudoOuNada ? 0 : INTERVALO_COMMIT);
+        }
+
+        /**
+         * @param venda venda já validada pelo pipeline
+         */
+        void adicionar(Venda venda, int lineNumber) throws SQLException {
+            writer.adicionar(venda, lineNumber);
+        }
 
-            if (line.isEmpty() || line.startsWith("DICA:") || line.startsWith("-")) {
-                continue;
+        ImportResult concluir(String origem, int errosLeitura) throws SQLException {
+            writer.gravarLote();
+            List<VendaBatchWriter.Falha> falhas = writer.getFalhas();
+            for (VendaBatchWriter.Falha falha : falhas) {
+                addError(falha.getLinha(), "Venda recusada pelo banco: " + falha.getMensagem());
             }
+            int errorCount = errosLeitura + falhas.size();
+            ordenarDiagnosticos();
+
+            if (tudoOuNada && errorCount > 0) {
+                writer.descartar();
+                addError(0, "Importação cancelada: " + errorCount + " linha(s) com erro no modo tudo ou nada");
+                System.out.println(" Importação " + origem + " desfeita: " + errorCount + " erros, "
+                        + warnings.size() + " avisos");
+                return new ImportResult(false, 0, errorCount, errors, warnings);
+            }
+
+            writer.finalizar();
+            int successCount = writer.getTotalGravadas();
+            System.out.println(" Importação " + origem + " concluída: " + successCount + " sucessos, " + errorCount
+                    + " erros, " + warnings.size() + " avisos");
+            return new ImportResult(true, successCount, errorCount, errors, warnings);
+        }
 
+        /**
+         * Os commits já chegaram ao cache e às telas pelo writer; o que não foi confirmado é desfeito
+         */
+        @Override
+        public void close() throws SQLException {
             try {
-                Venda venda = parseVendaFromWhatsApp(line, lineNumber);
-
-                if (venda != null) {
-                    vendaController.salvarVenda(venda);
-                    vendasImportadas.add(venda);
-                    successCount++;
-                    System.out.println(" Venda WhatsApp salva: " + venda.getProduto() + " - " + venda.getQuantidade() + " - R$ " + venda.getValorUnitario());
-                } else {
-                    addWarning(lineNumber, "Linha ignorada (sem dados de venda): " + line);
-                }
-            } catch (Exception e) {
-                addError(lineNumber, "Erro ao processar mensagem: " + e.getMessage());
-                errorCount++;
-                System.err.println(" Erro WhatsApp na linha " + lineNumber + ": " + e.getMessage());
+                writer.close();
+            } finally {
+                gravadasAntesDaFalha = writer.getTotalGravadas();
             }
         }
-
-        System.out.println(" Importação WhatsApp concluída: " + successCount + " sucessos, " + errorCount + " erros");
-        return new ImportResult(true, successCount, errorCount, errors, warnings);
     }
 
-    private Venda parseVendaFromCSV(String[] values, int lineNumber) {
-        if (values.length < 4) {
+    private Venda parseVendaFromCSV(LeitorCSVMapeado.Campos campos, int lineNumber) {
+        if (campos.getTotal() < 4) {
             addError(lineNumber, "Linha incompleta. Esperado 4 campos: produto,quantidade,valor,data");
             return null;
         }
 
         try {
-            String produto = cleanText(values[0]);
-            int quantidade = parseInteger(values[1], lineNumber, "quantidade");
-            double valor = parseDecimal(values[2], lineNumber, "valor unitário");
-            Date data = parseDate(values[3], lineNumber);
+            String produto = campos.texto(0);
+            int quantidade = parseInteger(campos, 1, lineNumber, "quantidade");
+            double valor = parseDecimal(campos, 2, lineNumber, "valor unitário");
+            Date data = parseDate(campos, 3, lineNumber);
 
             if (produto.isEmpty()) {
                 addError(lineNumber, "Nome do produto não pode estar vazio");
@@ -231,7 +558,7 @@ public class DataImporter {
                 return null;
             }
 
-            return new Venda(produto, quantidade, valor, data);
+            return novaVenda(produto, quantidade, valor, data);
 
         } catch (Exception e) {
             addError(lineNumber, "Erro na validação: " + e.getMessage());
@@ -239,6 +566,25 @@ public class DataImporter {
         }
     }
 
+    /**
+     * @return o campo de data de uma linha do CSV, sem copiar os bytes, ou null se a linha não tiver o campo
+     */
+    private CharSequence dataDoCSV(LeitorCSVMapeado.Linha linha) {
+        LeitorCSVMapeado.Campos campos = linha.campos();
+        return campos.getTotal() >= 4 ? campos.sequencia(3) : null;
+    }
+
+    /**
+     * @return a data de uma linha "produto - quantidade - valor - data", ou null se a linha não tiver data
+     */
+    private CharSequence dataDoTexto(String line) {
+        if (!line.contains(" - ")) {
+            return null;
+        }
+        String[] parts = line.split(" - ");
+        return parts.length > 3 ? cleanText(parts[3]) : null;
+    }
+
     private Venda parseVendaFromText(String line, int lineNumber) {
         try {
             if (line.contains(" - ")) {
@@ -255,7 +601,7 @@ public class DataImporter {
                         Date data = parseDate(dataStr, lineNumber);
 
                         if (quantidade > 0 && valor > 0) {
-                            return new Venda(produto, quantidade, valor, data);
+                            return novaVenda(produto, quantidade, valor, data);
                         }
                     }
                 }
@@ -276,7 +622,7 @@ public class DataImporter {
                         Date data = Date.valueOf(LocalDate.now());
 
                         if (quantidade > 0 && valor > 0) {
-                            return new Venda(produto, quantidade, valor, data);
+                            return novaVenda(produto, quantidade, valor, data);
                         }
                     }
                 }
@@ -293,95 +639,26 @@ public class DataImporter {
 
     private Venda parseVendaFromWhatsApp(String line, int lineNumber) {
         try {
-            line = line.replaceFirst("\\d{2}/\\d{2}/\\d{4} \\d{2}:\\d{2} - ", "");
-            line = line.replaceFirst("^[^:]+: ", "");
-
-            System.out.println(" Analisando linha WhatsApp: " + line);
-
-            String produto = "";
-            int quantidade = 1;
-            double valor = 0.0;
-
-            Matcher quantMatcher = QUANTITY_PATTERN.matcher(line);
-            if (quantMatcher.find()) {
-                quantidade = Integer.parseInt(quantMatcher.group(1));
-                System.out.println(" Quantidade encontrada: " + quantidade);
-            }
-
-            Matcher moneyMatcher = MONEY_PATTERN.matcher(line);
-            if (moneyMatcher.find()) {
-                String valorStr = moneyMatcher.group(1).replace(",", ".");
-                valor = Double.parseDouble(valorStr);
-                System.out.println(" Valor encontrado: " + valor);
-            } else {
-                Matcher decimalMatcher = DECIMAL_PATTERN.matcher(line);
-                List<Double> valores = new ArrayList<>();
-                while (decimalMatcher.find()) {
-                    try {
-                        double val = Double.parseDouble(decimalMatcher.group().replace(",", "."));
-                        if (val > 10) {
-                            valores.add(val);
-                        }
-                    } catch (NumberFormatException ignored) {}
-                }
-                if (!valores.isEmpty()) {
-                    valor = valores.get(valores.size() - 1);
-                    System.out.println(" Valor decimal encontrado: " + valor);
-                }
+            TokenizadorWhatsApp.Mensagem mensagem = TokenizadorWhatsApp.interpretar(line);
+            if (!mensagem.isVenda()) {
+                addWarning(lineNumber, "Linha ignorada (sem dados de venda): " + mensagem.getTexto());
+                return null;
             }
 
-            produto = line.replaceAll("\\d+[.,]?\\d*", "")
-                    .replaceAll("R\\$?", "")
-                    .replaceAll("por|cada|unidades?|vendeu|comprei|vendidos?", "")
-                    .replaceAll("\\s+", " ")
-                    .trim();
-
-            if (produto.startsWith(":")) produto = produto.substring(1).trim();
-            if (produto.endsWith("-")) produto = produto.substring(0, produto.length() - 1).trim();
-
+            String produto = mensagem.getProduto();
             if (produto.isEmpty()) {
                 produto = "Produto WhatsApp " + lineNumber;
             }
-
-            System.out.println(" Produto extraído: '" + produto + "'");
-            System.out.println(" Dados finais: " + produto + " | " + quantidade + " | " + valor);
-
-            if (valor > 0 && !produto.trim().isEmpty()) {
-                Date data = Date.valueOf(LocalDate.now());
-                return new Venda(produto.trim(), quantidade, valor, data);
-            } else {
-                addWarning(lineNumber, "Não foi possível extrair dados válidos: " + line);
-                return null;
-            }
+            // Linhas de uma exportação trazem a data da mensagem no cabeçalho
+            LocalDate data = mensagem.getData() != null ? mensagem.getData() : LocalDate.now();
+            return novaVenda(produto, mensagem.getQuantidade(), mensagem.getValor(), Date.valueOf(data));
 
         } catch (Exception e) {
             addError(lineNumber, "Erro ao processar mensagem WhatsApp: " + e.getMessage());
-            System.err.println(" Erro detalhado WhatsApp: " + e.getMessage());
-            e.printStackTrace();
             return null;
         }
     }
 
-    private String[] parseCSVLine(String line) {
-        List<String> values = new ArrayList<>();
-        boolean inQuotes = false;
-        StringBuilder currentValue = new StringBuilder();
-
-        for (char c : line.toCharArray()) {
-            if (c == '"') {
-                inQuotes = !inQuotes;
-            } else if (c == ',' && !inQuotes) {
-                values.add(currentValue.toString().trim());
-                currentValue = new StringBuilder();
-            } else {
-                currentValue.append(c);
-            }
-        }
-        values.add(currentValue.toString().trim());
-
-        return values.toArray(new String[0]);
-    }
-
     private boolean validateHeaders(String[] headers) {
         if (headers.length < 4) return false;
 
@@ -408,45 +685,53 @@ public class DataImporter {
             return false;
         }
 
-        if (file.length() > 10 * 1024 * 1024) {
-            addError(0, "Arquivo muito grande (máximo 10MB)");
+        if (TAMANHO_MAXIMO_MB > 0 && file.length() > TAMANHO_MAXIMO_MB * 1024 * 1024) {
+            addError(0, "Arquivo muito grande (máximo " + TAMANHO_MAXIMO_MB + "MB)");
             return false;
         }
 
         return true;
     }
 
+    /**
+     * Cria a venda com o nome do produto vindo do dicionário, para que milhares de linhas
+     * do mesmo produto compartilhem uma única String
+     */
+    private Venda novaVenda(String produto, int quantidade, double valor, Date data) {
+        return new Venda(produtos.canonico(produto), quantidade, valor, data);
+    }
+
     private String cleanText(String text) {
         if (text == null) return "";
         return text.trim().replaceAll("^\"|\"$", "");
     }
 
-    private int parseInteger(String value, int lineNumber, String fieldName) {
+    private int parseInteger(LeitorCSVMapeado.Campos campos, int campo, int lineNumber, String fieldName) {
         try {
-            String cleaned = value.replaceAll("[^0-9]", "");
-            if (cleaned.isEmpty()) {
-                throw new NumberFormatException("Vazio");
-            }
-            return Integer.parseInt(cleaned);
+            return campos.inteiro(campo);
         } catch (NumberFormatException e) {
-            addError(lineNumber, "Valor inválido para " + fieldName + ": '" + value + "'");
+            addError(lineNumber, "Valor inválido para " + fieldName + ": '" + campos.texto(campo) + "'");
             return 0;
         }
     }
 
-    private double parseDecimal(String value, int lineNumber, String fieldName) {
+    private double parseDecimal(LeitorCSVMapeado.Campos campos, int campo, int lineNumber, String fieldName) {
         try {
-            String cleaned = value.replaceAll("[^0-9.,]", "").replace(",", ".");
-            if (cleaned.isEmpty()) {
-                throw new NumberFormatException("Vazio");
-            }
-            return Double.parseDouble(cleaned);
+            return campos.decimal(campo);
         } catch (NumberFormatException e) {
-            addError(lineNumber, "Valor inválido para " + fieldName + ": '" + value + "'");
+            addError(lineNumber, "Valor inválido para " + fieldName + ": '" + campos.texto(campo) + "'");
             return 0.0;
         }
     }
 
+    /**
+     * Datas nos formatos numéricos comuns saem direto dos bytes; as demais passam pelo parse do texto
+     */
+    private Date parseDate(LeitorCSVMapeado.Campos campos, int campo, int lineNumber) {
+        LocalDate data = formatoData.interpretar(campos.sequencia(campo));
+        return data != null ? Date.valueOf(data) : parseDate(campos.texto(campo), lineNumber);
+    }
+
     private Date parseDate(String dateStr, int lineNumber) {
         if (dateStr == null || dateStr.trim().isEmpty()) {
             return Date.valueOf(LocalDate.now());
@@ -461,6 +746,12 @@ public class DataImporter {
             return Date.valueOf(LocalDate.now().minusDays(1));
         }
 
+        LocalDate detectada = formatoData.interpretar(cleaned);
+        if (detectada != null) {
+            return Date.valueOf(detectada);
+        }
+
+        // Só o que os formatos de largura fixa recusam chega aqui (ex.: ano com mais de 4 dígitos)
         for (DateTimeFormatter formatter : DATE_FORMATTERS) {
             try {
                 LocalDate date = LocalDate.parse(cleaned, formatter);
@@ -478,14 +769,27 @@ public class DataImporter {
         System.err.println(" Erro linha " + lineNumber + ": " + message);
     }
 
+    /**
+     * Avisos não vão para o console: numa conversa do WhatsApp quase toda linha gera um. O total sai no
+     * resumo da importação e a lista completa no ImportResult
+     */
     private void addWarning(int lineNumber, String message) {
         warnings.add(new ImportWarning(lineNumber, message));
-        System.out.println(" Aviso linha " + lineNumber + ": " + message);
+    }
+
+    private void ordenarDiagnosticos() {
+        synchronized (errors) {
+            errors.sort(Comparator.comparingInt(ImportError::getLineNumber));
+        }
+        synchronized (warnings) {
+            warnings.sort(Comparator.comparingInt(ImportWarning::getLineNumber));
+        }
     }
 
     private void clearErrorsAndWarnings() {
         errors.clear();
         warnings.clear();
+        formatoData = new DetectorFormatoData();
     }
 
     public static class ImportResult {
@@ -0,0 +1,106 @@
+package util;
+
+/**
+ * Detector de anomalias em memória constante para séries diárias de faturamento.
+ * A base é a média e o desvio de todos os dias anteriores ({@link AcumuladorWelford}) ou,
+ * opcionalmente, uma EWMA que acompanha mudanças de patamar. Cada dia é avaliado
+ * contra o estado anterior a ele, na ordem em que os dias fecham; como a EWMA não aceita remoção,
+ * a correção de um dia já fechado exige alimentar um detector novo desde o início.
+ */
+public class DetectorAnomalias {
+
+    private final double limiteDesvios;
+    private final int diasAquecimento;
+    private final boolean baseEwma;
+    private final double alfaEwma;
+
+    private final AcumuladorWelford welford = new AcumuladorWelford();
+
+    // EWMA
+    private boolean ewmaIniciada = false;
+    private double mediaEwma = 0;
+    private double varianciaEwma = 0;
+
+    /**
+     * @param limiteDesvios z-score a partir do qual um dia é anômalo
+     * @param diasAquecimento dias mínimos na base antes de emitir anomalias
+     * @param baseEwma true para comparar com a base EWMA em vez da média de todo o histórico
+     * @param alfaEwma peso do dia mais recente na base EWMA (0 a 1)
+     */
+    public DetectorAnomalias(double limiteDesvios, int diasAquecimento, boolean baseEwma, double alfaEwma) {
+        if (alfaEwma <= 0 || alfaEwma > 1) {
+            throw new IllegalArgumentException("Alfa da EWMA deve estar entre 0 e 1: " + alfaEwma);
+        }
+        this.limiteDesvios = limiteDesvios;
+        this.diasAquecimento = Math.max(2, diasAquecimento);
+        this.baseEwma = baseEwma;
+        this.alfaEwma = alfaEwma;
+    }
+
+    public void adicionar(double valor) {
+        welford.adicionar(valor);
+
+        if (!ewmaIniciada) {
+            ewmaIniciada = true;
+            mediaEwma = valor;
+            varianciaEwma = 0;
+        } else {
+            double diferenca = valor - mediaEwma;
+            double incremento = alfaEwma * diferenca;
+            mediaEwma += incremento;
+            varianciaEwma = (1 - alfaEwma) * (varianciaEwma + diferenca * incremento);
+        }
+    }
+
+    /**
+     * Avalia o valor contra a base atual, sem alterá-la
+     * @return a anomalia, ou null se o valor estiver dentro do esperado ou a base ainda for curta
+     */
+    public Anomalia avaliar(int dia, double valor) {
+        if (welford.getQuantidade() < diasAquecimento) {
+            return null;
+        }
+        double base = baseEwma ? mediaEwma : welford.getMedia();
+        double desvio = baseEwma ? Math.sqrt(varianciaEwma) : getDesvioPadrao();
+        if (desvio <= 0) {
+            return null;
+        }
+        double zScore = (valor - base) / desvio;
+        return Math.abs(zScore) > limiteDesvios ? new Anomalia(dia, valor, base, zScore) : null;
+    }
+
+    /**
+     * Avalia o dia que acabou de fechar e o incorpora à base
+     */
+    public Anomalia fecharDia(int dia, double valor) {
+        Anomalia anomalia = avaliar(dia, valor);
+        adicionar(valor);
+        return anomalia;
+    }
+
+    public long getQuantidade() { return welford.getQuantidade(); }
+    public double getMedia() { return welford.getMedia(); }
+    public double getDesvioPadrao() { return welford.getDesvioPadrao(); }
+    public double getMediaEwma() { return mediaEwma; }
+    public double getDesvioPadraoEwma() { return Math.sqrt(varianciaEwma); }
+
+    public static class Anomalia {
+        private final int dia;
+        private final double valor;
+        private final double base;
+        private final double zScore;
+
+        Anomalia(int dia, double valor, double base, double zScore) {
+            this.dia = dia;
+            this.valor = valor;
+            this.base = base;
+            this.zScore = zScore;
+        }
+
+        public int getDia() { return dia; }
+        public double getValor() { return valor; }
+        public double getBase() { return base; }
+        public double getZScore() { return zScore; }
+        public boolean isAcimaDaBase() { return zScore > 0; }
+    }
+}
@@ -0,0 +1,141 @@
+package util;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+
+/**
+ * Reconhece as datas de um arquivo importado sem usar exceções como controle de fluxo.
+ * O formato do arquivo é decidido uma única vez, antes de qualquer linha ser interpretada:
+ * {@link #detectar(Iterable)} recebe as datas das primeiras linhas, cada uma vota em todos os formatos
+ * que a aceitam, e o mais votado passa a ser tentado primeiro em todas as linhas; os demais só entram
+ * quando ele não reconhece a data. Assim um arquivo em MM/dd/yyyy é lido por inteiro como MM/dd,
+ * inclusive as datas ambíguas, e a mesma data tem sempre a mesma leitura dentro do arquivo.
+ * <p>
+ * Cada formato é lido à mão (largura fixa, sem DateTimeFormatter). Imutável; pode ser usado por várias threads.
+ */
+public class DetectorFormatoData {
+
+    /**
+     * Quantidade de datas que o importador coleta para {@link #detectar(Iterable)}
+     */
+    public static final int AMOSTRA = 50;
+
+    /**
+     * Formatos na ordem de preferência quando não há amostra (a mesma ordem do DataImporter)
+     */
+    public enum Formato {
+        DIA_MES_ANO("dd/MM/yyyy", '/', 0, 3, 6),
+        ANO_MES_DIA("yyyy-MM-dd", '-', 8, 5, 0),
+        DIA_MES_ANO_HIFEN("dd-MM-yyyy", '-', 0, 3, 6),
+        MES_DIA_ANO("MM/dd/yyyy", '/', 3, 0, 6);
+
+        private final String padrao;
+        private final char separador;
+        private final int posicaoDia;
+        private final int posicaoMes;
+        private final int posicaoAno;
+
+        Formato(String padrao, char separador, int posicaoDia, int posicaoMes, int posicaoAno) {
+            this.padrao = padrao;
+            this.separador = separador;
+            this.posicaoDia = posicaoDia;
+            this.posicaoMes = posicaoMes;
+            this.posicaoAno = posicaoAno;
+        }
+
+        public String getPadrao() { return padrao; }
+
+        /**
+         * @return a data, ou null se o texto não tiver exatamente este formato ou não for uma data válida
+         */
+        public LocalDate interpretar(CharSequence texto) {
+            if (texto.length() != 10) {
+                return null;
+            }
+            // Os separadores ficam nas posições que não são dígitos do padrão
+            int primeiro = posicaoAno == 0 ? 4 : 2;
+            if (texto.charAt(primeiro) != separador || texto.charAt(primeiro + 3) != separador) {
+                return null;
+            }
+            int dia = digitos(texto, posicaoDia, 2);
+            int mes = digitos(texto, posicaoMes, 2);
+            int ano = digitos(texto, posicaoAno, 4);
+            if (dia < 0 || mes < 0 || ano < 0) {
+                return null;
+            }
+            try {
+                return LocalDate.of(ano, mes, dia);
+            } catch (DateTimeException e) {
+                return null;
+            }
+        }
+
+        private static int digitos(CharSequence texto, int posicao, int quantidade) {
+            int valor = 0;
+            for (int i = posicao; i < posicao + quantidade; i++) {
+                char c = texto.charAt(i);
+                if (c < '0' || c > '9') {
+                    return -1;
+                }
+                valor = valor * 10 + (c - '0');
+            }
+            return valor;
+        }
+    }
+
+    private static final Formato[] FORMATOS = Formato.values();
+
+    private final Formato formato;
+
+    /**
+     * Sem amostra: segue a ordem de preferência de {@link Formato}
+     */
+    public DetectorFormatoData() {
+        this(FORMATOS[0]);
+    }
+
+    private DetectorFormatoData(Formato formato) {
+        this.formato = formato;
+    }
+
+    /**
+     * @param amostra datas (texto já limpo) das primeiras linhas do arquivo; as que nenhum formato aceita não votam
+     * @return detector com o formato aceito pelo maior número de datas; empate fica com o que vem antes
+     */
+    public static DetectorFormatoData detectar(Iterable<? extends CharSequence> amostra) {
+        int[] votos = new int[FORMATOS.length];
+        for (CharSequence texto : amostra) {
+            for (int i = 0; i < FORMATOS.length; i++) {
+                if (FORMATOS[i].interpretar(texto) != null) {
+                    votos[i]++;
+                }
+            }
+        }
+        int vencedor = 0;
+        for (int i = 1; i < FORMATOS.length; i++) {
+            if (votos[i] > votos[vencedor]) {
+                vencedor = i;
+            }
+        }
+        return new DetectorFormatoData(FORMATOS[vencedor]);
+    }
+
+    /**
+     * @return a data no formato do arquivo ou, se ele não servir, no primeiro dos demais que servir;
+     *         null se nenhum reconhecer (o chamador decide o que fazer)
+     */
+    public LocalDate interpretar(CharSequence texto) {
+        LocalDate data = formato.interpretar(texto);
+        if (data != null) {
+            return data;
+        }
+        for (Formato outro : FORMATOS) {
+            if (outro != formato && (data = outro.interpretar(texto)) != null) {
+                return data;
+            }
+        }
+        return null;
+    }
+
+    public Formato getFormato() { return formato; }
+}
@@ -0,0 +1,400 @@
+package util;
+
+import controller.VendaCache;
+import model.VendaStore;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Agregados do AnalyticsEngine mantidos incrementalmente a partir das alterações do VendaCache:
+ * cada inserção, atualização ou remoção custa O(log dias). A reconstrução completa acontece só quando
+ * o cache é recarregado, quando o início da janela histórica muda (virada do dia) ou quando
+ * o total de vendas ou o faturamento acompanhado diverge do cache. As anomalias de faturamento diário vêm de um
+ * {@link DetectorAnomalias} alimentado à medida que os dias fecham, sem repassar o histórico a cada leitura.
+ * Faturamento, vendas e quantidade por dia ficam em índices de Fenwick, então qualquer intervalo de datas
+ * (janelas recentes, semana e mês contra o período anterior) é somado em O(log dias), sem varrer as vendas.
+ * Por produto só os totais do histórico são mantidos: um índice diário por produto custaria
+ * produtos × dias de memória.
+ */
+public class EstadoAnalitico implements VendaCache.Observador {
+
+    private static final EstadoAnalitico INSTANCIA = criarInstancia();
+
+    private final VendaCache cache;
+
+    private boolean valido = false;
+    private int inicioHistorico = Integer.MIN_VALUE;
+    private int inicioHistoricoDesejado = Integer.MIN_VALUE;
+    private int totalVendas = 0;
+    private int vendasHistorico = 0;
+
+    // Todos os dias, inclusive fora do histórico; limites conservadores (remoções não os estreitam)
+    private IndiceDiario centavosPorDia = new IndiceDiario();
+    private IndiceDiario vendasPorDia = new IndiceDiario();
+    private IndiceDiario quantidadePorDia = new IndiceDiario();
+    private int menorDia = Integer.MAX_VALUE;
+    private int maiorDia = Integer.MIN_VALUE;
+
+    // Média e variância (Welford) do faturamento diário (R$) dos dias com venda no histórico
+    private AcumuladorWelford estatisticasDiarias = new AcumuladorWelford();
+
+    // Detector vivo: cada dia do histórico entra nele quando fecha. Corrigir um dia já fechado o invalida,
+    // e ele é realimentado desde o início na próxima leitura do resumo (a EWMA não aceita remoção)
+    private DetectorAnomalias detector;
+    private final List<DetectorAnomalias.Anomalia> anomaliasFechadas = new ArrayList<>();
+    private int ultimoDiaFechado;
+    private boolean detectorValido = false;
+
+    private final long[] centavosPorDiaSemana = new long[7];
+    private final int[] vendasPorDiaSemana = new int[7];
+
+    private long[] quantidadePorProduto = new long[0];
+    private long[] centavosPorProduto = new long[0];
+    private int[] vendasPorProduto = new int[0];
+
+    private final LongAdder reconstrucoes = new LongAdder();
+    private final LongAdder atualizacoesIncrementais = new LongAdder();
+    private final LongAdder divergencias = new LongAdder();
+
+    EstadoAnalitico(VendaCache cache) {
+        this.cache = cache;
+    }
+
+    private static EstadoAnalitico criarInstancia() {
+        EstadoAnalitico estado = new EstadoAnalitico(VendaCache.getInstancia());
+        estado.cache.registrarObservador(estado);
+        return estado;
+    }
+
+    public static EstadoAnalitico getInstancia() {
+        return INSTANCIA;
+    }
+
+    /**
+     * Monta o resumo a partir do estado mantido, em O(dias + produtos), reconstruindo antes se necessário
+     * @param hoje dia de referência (dias desde 1970-01-01)
+     * @param inicioHistorico primeiro dia dos agregados históricos, ou Integer.MIN_VALUE para todo o histórico
+     */
+    public ResumoAnalitico obterResumo(int hoje, int inicioHistorico) throws SQLException {
+        synchronized (this) {
+            if (valido && this.inicioHistorico == inicioHistorico) {
+                return montarResumo(hoje);
+            }
+            inicioHistoricoDesejado = inicioHistorico;
+        }
+        // Fora do lock do estado: o cache chama onRecarga segurando o próprio lock
+        cache.reprocessar(this);
+        synchronized (this) {
+            return montarResumo(hoje);
+        }
+    }
+
+    /**
+     * @return totais das vendas de inicio a fim (inclusive), em O(log dias)
+     */
+    public Totais obterTotaisEntre(LocalDate inicio, LocalDate fim) throws SQLException {
+        garantirValido();
+        synchronized (this) {
+            int diaInicio = VendaStore.paraDia(inicio);
+            int diaFim = VendaStore.paraDia(fim);
+            return new Totais(centavosPorDia.somaEntre(diaInicio, diaFim), vendasPorDia.somaEntre(diaInicio, diaFim),
+                    quantidadePorDia.somaEntre(diaInicio, diaFim));
+        }
+    }
+
+    private void garantirValido() throws SQLException {
+        synchronized (this) {
+            if (valido) {
+                return;
+            }
+        }
+        cache.reprocessar(this);
+    }
+
+    @Override
+    public synchronized void onRecarga(VendaStore vendas) {
+        reconstruir(vendas);
+    }
+
+    @Override
+    public synchronized void onInsercao(VendaStore vendas, int indice) {
+        if (!valido) {
+            return;
+        }
+        totalVendas++;
+        aplicar(vendas.getDia(indice), vendas.getProdutoId(indice), vendas.getQuantidade(indice),
+                vendas.getTotalCentavos(indice), 1);
+        acompanharDetector(vendas.getDia(indice));
+        verificarDivergencia(vendas.tamanho(), vendas.getFaturamentoCentavos());
+    }
+
+    @Override
+    public synchronized void onAtualizacao(VendaStore vendas, int indice, int produtoAnterior,
+                                           int quantidadeAnterior, long valorUnitarioCentavosAnterior) {
+        if (!valido) {
+            return;
+        }
+        int dia = vendas.getDia(indice);
+        aplicar(dia, produtoAnterior, quantidadeAnterior, quantidadeAnterior * valorUnitarioCentavosAnterior, -1);
+        aplicar(dia, vendas.getProdutoId(indice), vendas.getQuantidade(indice), vendas.getTotalCentavos(indice), 1);
+        acompanharDetector(dia);
+        verificarDivergencia(vendas.tamanho(), vendas.getFaturamentoCentavos());
+    }
+
+    @Override
+    public synchronized void onRemocao(VendaStore vendas, int indice) {
+        if (!valido) {
+            return;
+        }
+        totalVendas--;
+        aplicar(vendas.getDia(indice), vendas.getProdutoId(indice), vendas.getQuantidade(indice),
+                vendas.getTotalCentavos(indice), -1);
+        acompanharDetector(vendas.getDia(indice));
+        // Chamado antes da remoção: o cache ainda contém a venda
+        verificarDivergencia(vendas.tamanho() - 1, vendas.getFaturamentoCentavos() - vendas.getTotalCentavos(indice));
+    }
+
+    @Override
+    public synchronized void onInvalidacao() {
+        valido = false;
+    }
+
+    /**
+     * Por venda, O(1) fora da virada do dia: fecha no detector os dias que terminaram desde a última
+     * alteração e o invalida se a venda mexeu em um dia que ele já tinha fechado
+     */
+    private void acompanharDetector(int dia) {
+        if (!detectorValido) {
+            return;
+        }
+        if (dia >= inicioHistorico && dia <= ultimoDiaFechado) {
+            detectorValido = false;
+            return;
+        }
+        fecharDiasAte(VendaStore.paraDia(LocalDate.now()));
+    }
+
+    /**
+     * Alimenta o detector com os dias do histórico anteriores a hoje que ainda não entraram nele,
+     * em ordem; um detector invalidado recomeça do primeiro dia do histórico
+     */
+    private void fecharDiasAte(int hoje) {
+        if (detectorValido && ultimoDiaFechado >= hoje) {
+            // Leitura com um dia de referência anterior ao que o detector já fechou
+            detectorValido = false;
+        }
+        if (!detectorValido) {
+            detector = AnalyticsEngine.novoDetectorAnomalias();
+            anomaliasFechadas.clear();
+            ultimoDiaFechado = Math.min(Math.max(menorDia, inicioHistorico), hoje) - 1;
+            detectorValido = true;
+        }
+        int ultimo = Math.min(hoje - 1, maiorDia);
+        for (int dia = ultimoDiaFechado + 1; dia <= ultimo; dia++) {
+            if (vendasPorDia.valor(dia) > 0) {
+                DetectorAnomalias.Anomalia anomalia = detector.fecharDia(dia, centavosPorDia.valor(dia) / 100.0);
+                if (anomalia != null) {
+                    anomaliasFechadas.add(anomalia);
+                }
+            }
+        }
+        ultimoDiaFechado = Math.max(ultimoDiaFechado, hoje - 1);
+    }
+
+    /**
+     * Confere, em O(log dias), o total de vendas e o faturamento do índice diário contra o cache, e a média
+     * de Welford contra o faturamento do histórico no índice; qualquer diferença agenda a reconstrução
+     */
+    private void verificarDivergencia(int totalEsperado, long centavosEsperados) {
+        boolean divergiu = totalVendas != totalEsperado
+                || centavosPorDia.somaEntre(Integer.MIN_VALUE, Integer.MAX_VALUE) != centavosEsperados;
+        if (!divergiu && estatisticasDiarias.getQuantidade() > 0) {
+            double centavosHistorico = centavosPorDia.somaEntre(inicioHistorico, Integer.MAX_VALUE);
+            double centavosPelaMedia = estatisticasDiarias.getMedia() * estatisticasDiarias.getQuantidade() * 100;
+            divergiu = Math.abs(centavosPelaMedia - centavosHistorico) > 1 + Math.abs(centavosHistorico) * 1e-9;
+        }
+        if (divergiu) {
+            divergencias.increment();
+            valido = false;
+        }
+        atualizacoesIncrementais.increment();
+    }
+
+    private void aplicar(int dia, int produto, int quantidade, long centavos, int sinal) {
+        boolean noHistorico = dia >= inicioHistorico;
+        menorDia = Math.min(menorDia, dia);
+        maiorDia = Math.max(maiorDia, dia);
+
+        if (noHistorico) {
+            removerDiaDasEstatisticas(dia);
+        }
+        centavosPorDia.somar(dia, sinal * centavos);
+        vendasPorDia.somar(dia, sinal);
+        quantidadePorDia.somar(dia, sinal * (long) quantidade);
+
+        if (!noHistorico) {
+            return;
+        }
+        garantirProduto(produto);
+        adicionarDiaNasEstatisticas(dia);
+        vendasHistorico += sinal;
+
+        int diaSemana = ResumoAnalitico.diaDaSemana(dia);
+        centavosPorDiaSemana[diaSemana] += sinal * centavos;
+        vendasPorDiaSemana[diaSemana] += sinal;
+
+        quantidadePorProduto[produto] += sinal * (long) quantidade;
+        centavosPorProduto[produto] += sinal * centavos;
+        vendasPorProduto[produto] += sinal;
+    }
+
+    private void removerDiaDasEstatisticas(int dia) {
+        if (vendasPorDia.valor(dia) > 0) {
+            estatisticasDiarias.remover(centavosPorDia.valor(dia) / 100.0);
+        }
+    }
+
+    private void adicionarDiaNasEstatisticas(int dia) {
+        if (vendasPorDia.valor(dia) > 0) {
+            estatisticasDiarias.adicionar(centavosPorDia.valor(dia) / 100.0);
+        }
+    }
+
+    private void reconstruir(VendaStore vendas) {
+        inicioHistorico = inicioHistoricoDesejado;
+        totalVendas = 0;
+        vendasHistorico = 0;
+        estatisticasDiarias = new AcumuladorWelford();
+        detectorValido = false;
+        Arrays.fill(centavosPorDiaSemana, 0);
+        Arrays.fill(vendasPorDiaSemana, 0);
+
+        int totalDias = vendas.isVazio() ? 0 : vendas.getMaiorDia() - vendas.getMenorDia() + 1;
+        int primeiroDia = vendas.isVazio() ? 0 : vendas.getMenorDia();
+        menorDia = vendas.getMenorDia();
+        maiorDia = vendas.getMaiorDia();
+        long[] centavosDia = new long[totalDias];
+        long[] vendasDia = new long[totalDias];
+        long[] quantidadeDia = new long[totalDias];
+        int totalProdutos = vendas.getTotalProdutos();
+        quantidadePorProduto = new long[totalProdutos];
+        centavosPorProduto = new long[totalProdutos];
+        vendasPorProduto = new int[totalProdutos];
+
+        // Acumula em arrays e monta os índices diários em O(dias); estatísticas diárias no fim, uma vez por dia
+        for (int i = 0; i < vendas.tamanho(); i++) {
+            int dia = vendas.getDia(i);
+            int produto = vendas.getProdutoId(i);
+            int quantidade = vendas.getQuantidade(i);
+            long centavos = vendas.getTotalCentavos(i);
+            int offset = dia - primeiroDia;
+            centavosDia[offset] += centavos;
+            vendasDia[offset]++;
+            quantidadeDia[offset] += quantidade;
+            totalVendas++;
+
+            if (dia >= inicioHistorico) {
+                vendasHistorico++;
+                int diaSemana = ResumoAnalitico.diaDaSemana(dia);
+                centavosPorDiaSemana[diaSemana] += centavos;
+                vendasPorDiaSemana[diaSemana]++;
+                quantidadePorProduto[produto] += quantidade;
+                centavosPorProduto[produto] += centavos;
+                vendasPorProduto[produto]++;
+            }
+        }
+        for (int offset = 0; offset < totalDias; offset++) {
+            if (primeiroDia + offset >= inicioHistorico && vendasDia[offset] > 0) {
+                estatisticasDiarias.adicionar(centavosDia[offset] / 100.0);
+            }
+        }
+        centavosPorDia = IndiceDiario.de(primeiroDia, centavosDia);
+        vendasPorDia = IndiceDiario.de(primeiroDia, vendasDia);
+        quantidadePorDia = IndiceDiario.de(primeiroDia, quantidadeDia);
+
+        valido = true;
+        reconstrucoes.increment();
+    }
+
+    private ResumoAnalitico montarResumo(int hoje) {
+        boolean vazio = menorDia > maiorDia;
+        int inicioDias = vazio ? 0 : Math.max(menorDia, inicioHistorico);
+        int totalDias = vazio ? 0 : Math.max(0, maiorDia - inicioDias + 1);
+
+        ResumoAnalitico resumo = new ResumoAnalitico(hoje, inicioDias, totalDias, quantidadePorProduto.length);
+        centavosPorDia.copiarValores(inicioDias, resumo.centavosPorDia, 0, totalDias);
+        long[] vendasDia = new long[totalDias];
+        vendasPorDia.copiarValores(inicioDias, vendasDia, 0, totalDias);
+        for (int d = 0; d < totalDias; d++) {
+            resumo.vendasPorDia[d] = (int) vendasDia[d];
+        }
+        System.arraycopy(centavosPorDiaSemana, 0, resumo.centavosPorDiaSemana, 0, 7);
+        System.arraycopy(vendasPorDiaSemana, 0, resumo.vendasPorDiaSemana, 0, 7);
+        System.arraycopy(quantidadePorProduto, 0, resumo.quantidadePorProduto, 0, quantidadePorProduto.length);
+        System.arraycopy(centavosPorProduto, 0, resumo.centavosPorProduto, 0, centavosPorProduto.length);
+        System.arraycopy(vendasPorProduto, 0, resumo.vendasPorProduto, 0, vendasPorProduto.length);
+        resumo.vendasHistorico = vendasHistorico;
+
+        // Janelas recentes por soma de intervalo; as abertas à direita incluem eventuais datas futuras
+        int inicioJanelaRecente = hoje - (ResumoAnalitico.DIAS_JANELA_RECENTE - 1);
+        resumo.vendasJanelaRecente = (int) vendasPorDia.somaEntre(inicioJanelaRecente, Integer.MAX_VALUE);
+        resumo.centavosUltimos30Dias = centavosPorDia.somaEntre(hoje - 29, Integer.MAX_VALUE);
+        resumo.centavosUltimos7Dias = centavosPorDia.somaEntre(hoje - 6, Integer.MAX_VALUE);
+        resumo.vendasUltimos7Dias = (int) vendasPorDia.somaEntre(hoje - 6, Integer.MAX_VALUE);
+        resumo.vendaHoje = vendasPorDia.valor(hoje) > 0;
+        resumo.centavosAnteriores30Dias = centavosPorDia.somaEntre(hoje - 59, hoje - 31);
+        resumo.vendasAnteriores30Dias = (int) vendasPorDia.somaEntre(hoje - 59, hoje - 31);
+        resumo.centavosSemanaAnterior = centavosPorDia.somaEntre(hoje - 13, hoje - 7);
+        resumo.vendasSemanaAnterior = (int) vendasPorDia.somaEntre(hoje - 13, hoje - 7);
+        resumo.centavosMesAtual = centavosPorDia.somaEntre(ResumoAnalitico.inicioMes(hoje), hoje);
+        resumo.centavosMesAnterior = centavosPorDia.somaEntre(ResumoAnalitico.inicioMesAnterior(hoje),
+                ResumoAnalitico.fimMesAnteriorComparavel(hoje));
+
+        resumo.diasComVenda = (int) estatisticasDiarias.getQuantidade();
+        resumo.mediaDiaria = estatisticasDiarias.getMedia();
+        resumo.desvioPadraoDiario = estatisticasDiarias.getDesvioPadrao();
+
+        fecharDiasAte(hoje);
+        resumo.anomalias.addAll(anomaliasFechadas);
+        if (vendasPorDia.valor(hoje) > 0) {
+            resumo.adicionarAnomaliaDoDiaAberto(detector.avaliar(hoje, centavosPorDia.valor(hoje) / 100.0));
+        }
+        return resumo;
+    }
+
+    private void garantirProduto(int produto) {
+        if (produto >= quantidadePorProduto.length) {
+            int tamanho = Math.max(produto + 1, quantidadePorProduto.length * 2);
+            quantidadePorProduto = Arrays.copyOf(quantidadePorProduto, tamanho);
+            centavosPorProduto = Arrays.copyOf(centavosPorProduto, tamanho);
+            vendasPorProduto = Arrays.copyOf(vendasPorProduto, tamanho);
+        }
+    }
+
+    public long getReconstrucoes() { return reconstrucoes.sum(); }
+    public long getAtualizacoesIncrementais() { return atualizacoesIncrementais.sum(); }
+    public long getDivergencias() { return divergencias.sum(); }
+
+    public static class Totais {
+        private final long centavos;
+        private final long vendas;
+        private final long quantidade;
+
+        Totais(long centavos, long vendas, long quantidade) {
+            this.centavos = centavos;
+            this.vendas = vendas;
+            this.quantidade = quantidade;
+        }
+
+        public long getCentavos() { return centavos; }
+        public double getFaturamento() { return centavos / 100.0; }
+        public long getVendas() { return vendas; }
+        public long getQuantidade() { return quantidade; }
+        public double getTicketMedio() { return vendas == 0 ? 0 : centavos / 100.0 / vendas; }
+    }
+}
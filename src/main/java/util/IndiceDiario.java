@@ -0,0 +1,150 @@
+package util;
+
+/**
+ * Árvore de Fenwick (binary indexed tree) indexada por dia desde 1970-01-01: soma em um dia
+ * e soma de qualquer intervalo de dias em O(log n), com n = dias cobertos. Cresce para os dois
+ * lados conforme chegam dias novos; o valor de cada dia não é guardado à parte, é derivado da árvore.
+ */
+public class IndiceDiario {
+
+    private static final int CAPACIDADE_MINIMA = 64;
+
+    private int primeiroDia;
+    // arvore[i] (1-based) cobre os dias primeiroDia + (i - (i & -i)) até primeiroDia + i - 1
+    private long[] arvore;
+    private boolean vazio = true;
+
+    public IndiceDiario() {
+        this.arvore = new long[CAPACIDADE_MINIMA + 1];
+    }
+
+    /**
+     * Monta o índice em O(n) a partir dos valores diários já somados
+     * @param valores valores[i] é o total do dia primeiroDia + i
+     */
+    public static IndiceDiario de(int primeiroDia, long[] valores) {
+        IndiceDiario indice = new IndiceDiario();
+        if (valores.length == 0) {
+            return indice;
+        }
+        long[] arvore = new long[Math.max(valores.length, CAPACIDADE_MINIMA) + 1];
+        System.arraycopy(valores, 0, arvore, 1, valores.length);
+        construir(arvore);
+        indice.arvore = arvore;
+        indice.primeiroDia = primeiroDia;
+        indice.vazio = false;
+        return indice;
+    }
+
+    public void somar(int dia, long delta) {
+        int posicao = garantirDia(dia);
+        for (int i = posicao; i < arvore.length; i += i & -i) {
+            arvore[i] += delta;
+        }
+    }
+
+    /**
+     * @return soma dos dias de inicio a fim (inclusive); dias fora do índice contam como zero
+     */
+    public long somaEntre(int diaInicio, int diaFim) {
+        if (vazio) {
+            return 0;
+        }
+        int inicio = Math.max(diaInicio, primeiroDia);
+        int fim = Math.min(diaFim, getUltimoDia());
+        if (inicio > fim) {
+            return 0;
+        }
+        return prefixo(fim - primeiroDia + 1) - prefixo(inicio - primeiroDia);
+    }
+
+    public long valor(int dia) {
+        return somaEntre(dia, dia);
+    }
+
+    /**
+     * Copia os valores de dias consecutivos em O(total · log n)
+     */
+    public void copiarValores(int diaInicio, long[] destino, int posicao, int total) {
+        long anterior = vazio ? 0 : prefixo(Math.max(0, Math.min(diaInicio - primeiroDia, arvore.length - 1)));
+        for (int d = 0; d < total; d++) {
+            int dia = diaInicio + d;
+            if (vazio || dia < primeiroDia || dia > getUltimoDia()) {
+                destino[posicao + d] = 0;
+                continue;
+            }
+            long atual = prefixo(dia - primeiroDia + 1);
+            destino[posicao + d] = atual - anterior;
+            anterior = atual;
+        }
+    }
+
+    public boolean isVazio() { return vazio; }
+    public int getPrimeiroDia() { return primeiroDia; }
+
+    /**
+     * @return último dia coberto pela capacidade atual (pode estar além do último dia com valor)
+     */
+    public int getUltimoDia() { return primeiroDia + arvore.length - 2; }
+
+    private long prefixo(int quantidadeDias) {
+        long soma = 0;
+        for (int i = quantidadeDias; i > 0; i -= i & -i) {
+            soma += arvore[i];
+        }
+        return soma;
+    }
+
+    /**
+     * @return posição 1-based do dia na árvore, realocando-a se o dia estiver fora da cobertura
+     */
+    private int garantirDia(int dia) {
+        if (vazio) {
+            vazio = false;
+            primeiroDia = dia - (arvore.length - 1) / 2;
+            return dia - primeiroDia + 1;
+        }
+        if (dia >= primeiroDia && dia <= getUltimoDia()) {
+            return dia - primeiroDia + 1;
+        }
+        int capacidade = arvore.length - 1;
+        long[] valores = new long[capacidade];
+        System.arraycopy(arvore, 1, valores, 0, capacidade);
+        desconstruir(valores);
+
+        // Folga proporcional para o lado que cresceu, amortizando as realocações
+        int novoPrimeiroDia = primeiroDia;
+        int novoUltimoDia = getUltimoDia();
+        if (dia < primeiroDia) {
+            novoPrimeiroDia = dia - Math.max(capacidade / 2, CAPACIDADE_MINIMA);
+        } else {
+            novoUltimoDia = dia + Math.max(capacidade / 2, CAPACIDADE_MINIMA);
+        }
+        long[] novaArvore = new long[novoUltimoDia - novoPrimeiroDia + 2];
+        System.arraycopy(valores, 0, novaArvore, primeiroDia - novoPrimeiroDia + 1, capacidade);
+        construir(novaArvore);
+        arvore = novaArvore;
+        primeiroDia = novoPrimeiroDia;
+        return dia - primeiroDia + 1;
+    }
+
+    // Converte, no lugar, valores (a partir do índice 1) na árvore de Fenwick correspondente
+    private static void construir(long[] arvore) {
+        for (int i = 1; i < arvore.length; i++) {
+            int pai = i + (i & -i);
+            if (pai < arvore.length) {
+                arvore[pai] += arvore[i];
+            }
+        }
+    }
+
+    // Inverso de construir, sobre os valores já copiados para um array 0-based
+    private static void desconstruir(long[] valores) {
+        for (int i = valores.length; i > 0; i--) {
+            int pai = i + (i & -i);
+            if (pai <= valores.length) {
+                valores[pai - 1] -= valores[i - 1];
+            }
+        }
+    }
+}
@@ -0,0 +1,364 @@
+package util;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Leitor de CSV sobre o arquivo mapeado em memória (FileChannel.map), em janelas de até
+ * TAMANHO_JANELA bytes para aceitar arquivos de vários gigabytes. As linhas são devolvidas como
+ * intervalos de bytes da janela, sem cópia; quantidades, preços e datas são lidos direto dos bytes
+ * UTF-8 e só o texto que precisa virar String (produto, mensagens de erro) é decodificado.
+ * <p>
+ * Campos entre aspas podem conter vírgulas, quebras de linha e aspas escapadas ({@code ""}).
+ * O leitor não é thread-safe, mas as {@link Linha}s devolvidas podem ser interpretadas em outras threads:
+ * a janela só é lida por posição absoluta.
+ */
+public class LeitorCSVMapeado implements AutoCloseable {
+
+    private static final int TAMANHO_JANELA = 256 * 1024 * 1024;
+    // Acima disso a mantissa pode não ser exata em double; cai no Double.parseDouble
+    private static final int MAXIMO_DIGITOS_DECIMAL = 15;
+    private static final double[] POTENCIAS_DE_DEZ = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+
+    private final FileChannel canal;
+    private final long tamanhoArquivo;
+    private final int tamanhoJanela;
+
+    private MappedByteBuffer janela;
+    private long posicaoJanela = 0;
+    private int cursor = 0;
+    private int linhasLidas = 0;
+
+    public LeitorCSVMapeado(Path arquivo) throws IOException {
+        this(arquivo, TAMANHO_JANELA);
+    }
+
+    LeitorCSVMapeado(Path arquivo, int tamanhoJanela) throws IOException {
+        this.canal = FileChannel.open(arquivo, StandardOpenOption.READ);
+        this.tamanhoJanela = tamanhoJanela;
+        try {
+            this.tamanhoArquivo = canal.size();
+            mapear(0);
+        } catch (IOException e) {
+            canal.close();
+            throw e;
+        }
+        // BOM UTF-8 gravado por alguns exportadores (ex.: Excel)
+        if (janela.limit() >= 3 && (janela.get(0) & 0xFF) == 0xEF
+                && (janela.get(1) & 0xFF) == 0xBB && (janela.get(2) & 0xFF) == 0xBF) {
+            cursor = 3;
+        }
+    }
+
+    /**
+     * @return próxima linha lógica (uma linha pode ocupar várias linhas físicas dentro de aspas), ou null no fim do arquivo
+     */
+    public Linha proxima() throws IOException {
+        while (true) {
+            int limite = janela.limit();
+            boolean ultimaJanela = posicaoJanela + limite >= tamanhoArquivo;
+            if (cursor >= limite && ultimaJanela) {
+                return null;
+            }
+
+            int inicio = cursor;
+            int quebras = 0;
+            boolean entreAspas = false;
+            int i = inicio;
+            for (; i < limite; i++) {
+                byte b = janela.get(i);
+                if (b == '"') {
+                    entreAspas = !entreAspas;
+                } else if (b == '\n') {
+                    if (!entreAspas) {
+                        break;
+                    }
+                    quebras++;
+                }
+            }
+
+            if (i == limite && !ultimaJanela) {
+                if (inicio == 0) {
+                    throw new IOException("Linha " + (linhasLidas + 1) + " maior que a janela de leitura ("
+                            + tamanhoJanela + " bytes)");
+                }
+                // A linha continua na próxima janela: remapeia a partir do início dela
+                mapear(posicaoJanela + inicio);
+                continue;
+            }
+
+            cursor = Math.min(i + 1, limite);
+            int fim = i;
+            if (fim > inicio && janela.get(fim - 1) == '\r') {
+                fim--;
+            }
+            int numero = linhasLidas + 1;
+            linhasLidas += 1 + quebras;
+            return new Linha(janela, inicio, fim, numero);
+        }
+    }
+
+    private void mapear(long posicao) throws IOException {
+        long tamanho = Math.min(tamanhoJanela, tamanhoArquivo - posicao);
+        janela = canal.map(FileChannel.MapMode.READ_ONLY, posicao, tamanho);
+        posicaoJanela = posicao;
+        cursor = 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+        canal.close();
+    }
+
+    /**
+     * Intervalo de bytes de uma linha dentro da janela mapeada
+     */
+    public static class Linha {
+        private final MappedByteBuffer janela;
+        private final int inicio;
+        private final int fim;
+        private final int numero;
+
+        Linha(MappedByteBuffer janela, int inicio, int fim, int numero) {
+            this.janela = janela;
+            this.inicio = inicio;
+            this.fim = fim;
+            this.numero = numero;
+        }
+
+        /**
+         * @return número da linha física onde a linha começa (1-based)
+         */
+        public int getNumero() { return numero; }
+
+        public boolean isVazia() {
+            for (int i = inicio; i < fim; i++) {
+                if (!espaco(janela.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Separa os campos pela vírgula fora de aspas, guardando só as posições
+         */
+        public Campos campos() {
+            Campos campos = new Campos(janela);
+            boolean entreAspas = false;
+            boolean temAspas = false;
+            int inicioCampo = inicio;
+            for (int i = inicio; i < fim; i++) {
+                byte b = janela.get(i);
+                if (b == '"') {
+                    entreAspas = !entreAspas;
+                    temAspas = true;
+                } else if (b == ',' && !entreAspas) {
+                    campos.adicionar(inicioCampo, i, temAspas);
+                    inicioCampo = i + 1;
+                    temAspas = false;
+                }
+            }
+            campos.adicionar(inicioCampo, fim, temAspas);
+            return campos;
+        }
+    }
+
+    /**
+     * Campos de uma linha como intervalos de bytes; cada leitor converte direto dos bytes
+     */
+    public static class Campos {
+        private final MappedByteBuffer janela;
+        private int[] inicios = new int[8];
+        private int[] fins = new int[8];
+        private boolean[] comAspas = new boolean[8];
+        private int total = 0;
+
+        Campos(MappedByteBuffer janela) {
+            this.janela = janela;
+        }
+
+        private void adicionar(int inicio, int fim, boolean temAspas) {
+            if (total == inicios.length) {
+                inicios = Arrays.copyOf(inicios, total * 2);
+                fins = Arrays.copyOf(fins, total * 2);
+                comAspas = Arrays.copyOf(comAspas, total * 2);
+            }
+            // Espaços nas pontas não fazem parte do valor
+            while (inicio < fim && espaco(janela.get(inicio))) {
+                inicio++;
+            }
+            while (fim > inicio && espaco(janela.get(fim - 1))) {
+                fim--;
+            }
+            inicios[total] = inicio;
+            fins[total] = fim;
+            comAspas[total] = temAspas;
+            total++;
+        }
+
+        public int getTotal() { return total; }
+
+        public boolean isVazio(int campo) {
+            return inicios[campo] == fins[campo];
+        }
+
+        /**
+         * @return o campo decodificado de UTF-8, sem as aspas e sem espaços nas pontas
+         */
+        public String texto(int campo) {
+            int inicio = inicios[campo];
+            int fim = fins[campo];
+            byte[] bytes = new byte[fim - inicio];
+            int tamanho = 0;
+            if (!comAspas[campo]) {
+                for (int i = inicio; i < fim; i++) {
+                    bytes[tamanho++] = janela.get(i);
+                }
+                return new String(bytes, 0, tamanho, StandardCharsets.UTF_8);
+            }
+            boolean entreAspas = false;
+            for (int i = inicio; i < fim; i++) {
+                byte b = janela.get(i);
+                if (b != '"') {
+                    bytes[tamanho++] = b;
+                } else if (entreAspas && i + 1 < fim && janela.get(i + 1) == '"') {
+                    bytes[tamanho++] = b;
+                    i++;
+                } else {
+                    entreAspas = !entreAspas;
+                }
+            }
+            return new String(bytes, 0, tamanho, StandardCharsets.UTF_8).trim();
+        }
+
+        public String[] textos() {
+            String[] textos = new String[total];
+            for (int i = 0; i < total; i++) {
+                textos[i] = texto(i);
+            }
+            return textos;
+        }
+
+        /**
+         * Lê os dígitos do campo ignorando qualquer outro caractere (ex.: "10 un" = 10)
+         * @throws NumberFormatException se não houver dígitos ou o valor não couber em int
+         */
+        public int inteiro(int campo) {
+            long valor = 0;
+            boolean temDigito = false;
+            for (int i = inicios[campo]; i < fins[campo]; i++) {
+                byte b = janela.get(i);
+                if (b >= '0' && b <= '9') {
+                    valor = valor * 10 + (b - '0');
+                    temDigito = true;
+                    if (valor > Integer.MAX_VALUE) {
+                        throw new NumberFormatException("Valor fora do limite");
+                    }
+                }
+            }
+            if (!temDigito) {
+                throw new NumberFormatException("Vazio");
+            }
+            return (int) valor;
+        }
+
+        /**
+         * Lê dígitos e um separador decimal (ponto ou vírgula), ignorando outros caracteres (ex.: "R$ 12,50")
+         * @throws NumberFormatException se não houver dígitos ou houver mais de um separador
+         */
+        public double decimal(int campo) {
+            long mantissa = 0;
+            int significativos = 0;
+            int casas = -1;
+            boolean temDigito = false;
+            for (int i = inicios[campo]; i < fins[campo]; i++) {
+                byte b = janela.get(i);
+                if (b >= '0' && b <= '9') {
+                    temDigito = true;
+                    mantissa = mantissa * 10 + (b - '0');
+                    if (mantissa != 0 && ++significativos > MAXIMO_DIGITOS_DECIMAL) {
+                        return decimalPorTexto(campo);
+                    }
+                    if (casas >= 0 && ++casas >= POTENCIAS_DE_DEZ.length) {
+                        return decimalPorTexto(campo);
+                    }
+                } else if (b == '.' || b == ',') {
+                    if (casas >= 0) {
+                        throw new NumberFormatException("Mais de um separador decimal");
+                    }
+                    casas = 0;
+                }
+            }
+            if (!temDigito) {
+                throw new NumberFormatException("Vazio");
+            }
+            // mantissa e 10^casas são exatos em double, então a divisão arredonda como o parseDouble
+            return casas > 0 ? mantissa / POTENCIAS_DE_DEZ[casas] : mantissa;
+        }
+
+        /**
+         * @return o campo como CharSequence sobre os bytes, sem cópia; cada byte vira um char,
+         *         então só serve para texto ASCII (datas, códigos). Campo entre aspas volta como {@link #texto(int)}
+         */
+        public CharSequence sequencia(int campo) {
+            if (comAspas[campo]) {
+                return texto(campo);
+            }
+            return new Trecho(inicios[campo], fins[campo], campo);
+        }
+
+        private double decimalPorTexto(int campo) {
+            String limpo = texto(campo).replaceAll("[^0-9.,]", "").replace(",", ".");
+            return Double.parseDouble(limpo);
+        }
+
+        private final class Trecho implements CharSequence {
+            private final int inicio;
+            private final int fim;
+            private final int campo;
+
+            Trecho(int inicio, int fim, int campo) {
+                this.inicio = inicio;
+                this.fim = fim;
+                this.campo = campo;
+            }
+
+            @Override
+            public int length() { return fim - inicio; }
+
+            @Override
+            public char charAt(int indice) {
+                return (char) (janela.get(inicio + indice) & 0xFF);
+            }
+
+            @Override
+            public CharSequence subSequence(int de, int ate) {
+                return new Trecho(inicio + de, inicio + ate, -1);
+            }
+
+            @Override
+            public String toString() {
+                if (campo >= 0) {
+                    return texto(campo);
+                }
+                byte[] bytes = new byte[fim - inicio];
+                for (int i = 0; i < bytes.length; i++) {
+                    bytes[i] = janela.get(inicio + i);
+                }
+                return new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+    }
+
+    private static boolean espaco(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+}
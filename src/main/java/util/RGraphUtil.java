@@ -1,9 +1,9 @@
 package util;
 
 import model.Venda;
+import model.VendaStore;
 import java.io.*;
 import java.util.*;
-import java.util.stream.Collectors;
 import java.nio.charset.StandardCharsets;
 
 public class RGraphUtil {
@@ -11,11 +11,23 @@ public class RGraphUtil {
     private static final String R_SCRIPT_PATH = "temp_graph_script.R";
     private static final String CSV_DATA_PATH = "temp_vendas_data.csv";
     private static final String OUTPUT_IMAGE_PATH = "vendas_grafico.png";
+    private static final int TOP_PRODUTOS_GRAFICO = AppConfig.getInt("GRAFICO_TOP_PRODUTOS", 20);
     
     // Armazena o comando R funcional (Rscript) para não ter que procurá-lo novamente.
     private static String comandoRVerificado = null;
 
     public static String gerarGraficoVendas(List<Venda> vendas) {
+        return gerarGraficoVendas(VendaStore.de(vendas));
+    }
+
+    public static String gerarGraficoVendas(VendaStore vendas) {
+        return gerarGraficoVendas(agregareVendasPorProduto(vendas));
+    }
+
+    /**
+     * @param dadosAgregados quantidade por produto, como devolvida por {@link #agregareVendasPorProduto(VendaStore)}
+     */
+    public static String gerarGraficoVendas(Map<String, Integer> dadosAgregados) {
         System.out.println("Iniciando geração de gráfico R com paleta FIAP + Asteria...");
 
         try {
@@ -25,7 +37,6 @@ public class RGraphUtil {
                 return null;
             }
 
-            Map<String, Integer> dadosAgregados = agregareVendasPorProduto(vendas);
             System.out.println("Dados agregados: " + dadosAgregados);
 
             if (dadosAgregados.isEmpty()) {
@@ -99,12 +110,42 @@ public class RGraphUtil {
         return false;
     }
 
-    private static Map<String, Integer> agregareVendasPorProduto(List<Venda> vendas) {
-        return vendas.stream()
-                .collect(Collectors.groupingBy(
-                        Venda::getProduto,
-                        Collectors.summingInt(Venda::getQuantidade)
-                ));
+    /**
+     * Soma as quantidades por produto e mantém só os GRAFICO_TOP_PRODUTOS maiores (O(n log k));
+     * os demais entram somados como "Outros". Com GRAFICO_TOP_PRODUTOS=0 todos os produtos são plotados.
+     */
+    public static Map<String, Integer> agregareVendasPorProduto(VendaStore vendas) {
+        int[] quantidadePorProduto = new int[vendas.getTotalProdutos()];
+        for (int i = 0; i < vendas.tamanho(); i++) {
+            quantidadePorProduto[vendas.getProdutoId(i)] += vendas.getQuantidade(i);
+        }
+
+        Map<String, Integer> dados = new LinkedHashMap<>();
+        if (TOP_PRODUTOS_GRAFICO <= 0) {
+            for (int produto = 0; produto < quantidadePorProduto.length; produto++) {
+                if (quantidadePorProduto[produto] > 0) {
+                    dados.put(vendas.getNomeProduto(produto), quantidadePorProduto[produto]);
+                }
+            }
+            return dados;
+        }
+
+        TopK top = new TopK(TOP_PRODUTOS_GRAFICO);
+        long total = 0;
+        for (int produto = 0; produto < quantidadePorProduto.length; produto++) {
+            if (quantidadePorProduto[produto] > 0) {
+                top.oferecer(produto, quantidadePorProduto[produto]);
+                total += quantidadePorProduto[produto];
+            }
+        }
+        for (int produto : top.ordenados()) {
+            dados.put(vendas.getNomeProduto(produto), quantidadePorProduto[produto]);
+            total -= quantidadePorProduto[produto];
+        }
+        if (total > 0) {
+            dados.merge("Outros", (int) total, Integer::sum);
+        }
+        return dados;
     }
 
     private static void criarArquivoCSVTemp(Map<String, Integer> dados) throws IOException {
@@ -1,17 +1,79 @@
 package util;
 
+import controller.VendaController;
 import model.Venda;
-import java.io.FileWriter;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.sql.SQLException;
 import java.util.List;
 
 public class ReportUtil {
+    private static final String CABECALHO = "Produto,Quantidade,Valor Unitário,Data\n";
+
     public static void exportarCSV(List<Venda> vendas, String path) throws IOException {
-        FileWriter writer = new FileWriter(path);
-        writer.write("Produto,Quantidade,Valor Unitário,Data\n");
-        for (Venda v : vendas) {
-            writer.write(v.getProduto() + "," + v.getQuantidade() + "," + v.getValorUnitario() + "," + v.getData() + "\n");
+        try (BufferedWriter writer = abrir(path)) {
+            writer.write(CABECALHO);
+            for (Venda v : vendas) {
+                escreverLinha(writer, v);
+            }
+        }
+    }
+
+    /**
+     * Exporta todas as vendas lendo o banco em streaming, sem carregar a tabela inteira em memória
+     * @return quantidade de vendas exportadas
+     */
+    public static int exportarCSV(VendaController vendaController, String path) throws IOException, SQLException {
+        try (BufferedWriter writer = abrir(path)) {
+            writer.write(CABECALHO);
+            return vendaController.percorrerVendas(v -> {
+                try {
+                    escreverLinha(writer, v);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * UTF-8 explícito, que é o que o {@link LeitorCSVMapeado} lê, independente do charset da plataforma
+     */
+    private static BufferedWriter abrir(String path) throws IOException {
+        return Files.newBufferedWriter(Paths.get(path), StandardCharsets.UTF_8);
+    }
+
+    private static void escreverLinha(Writer writer, Venda v) throws IOException {
+        writer.write(campo(v.getProduto()));
+        writer.write(',');
+        writer.write(String.valueOf(v.getQuantidade()));
+        writer.write(',');
+        writer.write(String.valueOf(v.getValorUnitario()));
+        writer.write(',');
+        writer.write(String.valueOf(v.getData()));
+        writer.write('\n');
+    }
+
+    /**
+     * Põe entre aspas o texto com vírgula, aspas ou quebra de linha, dobrando as aspas internas (RFC 4180)
+     */
+    static String campo(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return '"' + texto.replace("\"", "\"\"") + '"';
+            }
         }
-        writer.close();
+        return texto;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,327 @@
+package util;
+
+import model.AgregadoVendas;
+import model.ProdutoDicionario;
+import model.VendaStore;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Acumuladores usados pelos analisadores do AnalyticsEngine, montados em uma única passada
+ * sobre o VendaStore, copiados do estado incremental mantido por EstadoAnalitico ou
+ * montados a partir de agregados calculados pelo MySQL.
+ * As janelas recentes (hoje, 7, 30 e 60 dias, semana anterior, mês corrente e anterior) consideram todas as vendas; os agregados por dia,
+ * dia da semana e produto consideram só as vendas a partir do início do histórico.
+ */
+public class ResumoAnalitico {
+
+    public static final int DIAS_JANELA_RECENTE = 60;
+
+    final int hoje;
+
+    int vendasJanelaRecente;
+    int vendasHistorico;
+
+    long centavosUltimos30Dias;
+    long centavosAnteriores30Dias;
+    int vendasAnteriores30Dias;
+    long centavosUltimos7Dias;
+    int vendasUltimos7Dias;
+    boolean vendaHoje;
+
+    // Semana contra semana: os 7 dias antes dos últimos 7
+    long centavosSemanaAnterior;
+    int vendasSemanaAnterior;
+    // Mês contra mês: do dia 1 até hoje contra o mesmo trecho do mês anterior
+    long centavosMesAtual;
+    long centavosMesAnterior;
+
+    // Indexados por dia - primeiroDia
+    final int primeiroDia;
+    final long[] centavosPorDia;
+    final int[] vendasPorDia;
+
+    // Faturamento diário (R$) dos dias com venda
+    int diasComVenda;
+    double mediaDiaria;
+    double desvioPadraoDiario;
+
+    // Dias fechados fora da base e o dia corrente, se já estiver excepcionalmente alto
+    final List<DetectorAnomalias.Anomalia> anomalias = new ArrayList<>();
+
+    // Índice 0 = segunda-feira, como DayOfWeek.getValue() - 1
+    final long[] centavosPorDiaSemana = new long[7];
+    final int[] vendasPorDiaSemana = new int[7];
+
+    // Indexados pelo id do ProdutoDicionario
+    final long[] quantidadePorProduto;
+    final long[] centavosPorProduto;
+    final int[] vendasPorProduto;
+
+    ResumoAnalitico(int hoje, int primeiroDia, int totalDias, int totalProdutos) {
+        this.hoje = hoje;
+        this.primeiroDia = primeiroDia;
+        this.centavosPorDia = new long[totalDias];
+        this.vendasPorDia = new int[totalDias];
+        this.quantidadePorProduto = new long[totalProdutos];
+        this.centavosPorProduto = new long[totalProdutos];
+        this.vendasPorProduto = new int[totalProdutos];
+    }
+
+    /**
+     * Percorre o store uma única vez
+     * @param hoje dia de referência (dias desde 1970-01-01)
+     * @param inicioHistorico primeiro dia dos agregados históricos, ou Integer.MIN_VALUE para todo o histórico
+     */
+    public static ResumoAnalitico calcular(VendaStore vendas, int hoje, int inicioHistorico) {
+        int primeiroDia = Math.max(vendas.getMenorDia(), inicioHistorico);
+        int totalDias = vendas.isVazio() || vendas.getMaiorDia() < primeiroDia
+                ? 0
+                : vendas.getMaiorDia() - primeiroDia + 1;
+        ResumoAnalitico resumo = new ResumoAnalitico(hoje, primeiroDia, totalDias, vendas.getTotalProdutos());
+
+        int inicioJanelaRecente = hoje - (DIAS_JANELA_RECENTE - 1);
+        int inicio30Dias = hoje - 30;
+        int inicio60Dias = hoje - 60;
+        int inicio7Dias = hoje - 7;
+        int inicioMes = inicioMes(hoje);
+        int inicioMesAnterior = inicioMesAnterior(hoje);
+        int fimMesAnterior = fimMesAnteriorComparavel(hoje);
+
+        for (int i = 0; i < vendas.tamanho(); i++) {
+            int dia = vendas.getDia(i);
+            long centavos = vendas.getTotalCentavos(i);
+
+            if (dia >= inicioJanelaRecente) {
+                resumo.vendasJanelaRecente++;
+                if (dia > inicio30Dias) {
+                    resumo.centavosUltimos30Dias += centavos;
+                }
+                if (dia > inicio7Dias) {
+                    resumo.vendasUltimos7Dias++;
+                    resumo.centavosUltimos7Dias += centavos;
+                    resumo.vendaHoje |= dia == hoje;
+                }
+            }
+            if (dia > inicio60Dias && dia < inicio30Dias) {
+                resumo.centavosAnteriores30Dias += centavos;
+                resumo.vendasAnteriores30Dias++;
+            }
+            if (dia >= hoje - 13 && dia <= inicio7Dias) {
+                resumo.centavosSemanaAnterior += centavos;
+                resumo.vendasSemanaAnterior++;
+            }
+            if (dia >= inicioMes && dia <= hoje) {
+                resumo.centavosMesAtual += centavos;
+            } else if (dia >= inicioMesAnterior && dia <= fimMesAnterior) {
+                resumo.centavosMesAnterior += centavos;
+            }
+
+            if (dia < inicioHistorico) {
+                continue;
+            }
+            resumo.vendasHistorico++;
+
+            int offset = dia - primeiroDia;
+            resumo.centavosPorDia[offset] += centavos;
+            resumo.vendasPorDia[offset]++;
+
+            int diaSemana = diaDaSemana(dia);
+            resumo.centavosPorDiaSemana[diaSemana] += centavos;
+            resumo.vendasPorDiaSemana[diaSemana]++;
+
+            int produto = vendas.getProdutoId(i);
+            resumo.quantidadePorProduto[produto] += vendas.getQuantidade(i);
+            resumo.centavosPorProduto[produto] += centavos;
+            resumo.vendasPorProduto[produto]++;
+        }
+        resumo.calcularEstatisticasDiarias();
+        resumo.detectarAnomalias();
+        return resumo;
+    }
+
+    /**
+     * Monta o resumo a partir dos agregados calculados pelo MySQL (ver VendaDAO.obterAgregadosAnalytics),
+     * que precisam cobrir os totais diários desde min(inicioHistorico, {@link #inicioDiasRecentes(int)})
+     * @param inicioHistorico primeiro dia dos agregados históricos, ou Integer.MIN_VALUE para todo o histórico
+     */
+    public static ResumoAnalitico deAgregados(List<AgregadoVendas> agregados, int hoje, int inicioHistorico) {
+        ProdutoDicionario dicionario = ProdutoDicionario.getInstancia();
+        int menorDia = Integer.MAX_VALUE;
+        int maiorDia = Integer.MIN_VALUE;
+        for (AgregadoVendas agregado : agregados) {
+            if (agregado.getDimensao() == AgregadoVendas.Dimensao.DIA) {
+                menorDia = Math.min(menorDia, agregado.getChave());
+                maiorDia = Math.max(maiorDia, agregado.getChave());
+            } else if (agregado.getDimensao() == AgregadoVendas.Dimensao.PRODUTO) {
+                dicionario.codificar(agregado.getProduto());
+            }
+        }
+
+        int primeiroDia = Math.max(menorDia, inicioHistorico);
+        int totalDias = maiorDia < primeiroDia ? 0 : maiorDia - primeiroDia + 1;
+        ResumoAnalitico resumo = new ResumoAnalitico(hoje, primeiroDia, totalDias, dicionario.tamanho());
+
+        int inicioJanelaRecente = hoje - (DIAS_JANELA_RECENTE - 1);
+        int inicioMes = inicioMes(hoje);
+        int inicioMesAnterior = inicioMesAnterior(hoje);
+        int fimMesAnterior = fimMesAnteriorComparavel(hoje);
+        for (AgregadoVendas agregado : agregados) {
+            switch (agregado.getDimensao()) {
+                case DIA:
+                    int dia = agregado.getChave();
+                    long centavos = agregado.getCentavos();
+                    int vendas = agregado.getVendas();
+                    if (dia >= inicioJanelaRecente) {
+                        resumo.vendasJanelaRecente += vendas;
+                        if (dia > hoje - 30) {
+                            resumo.centavosUltimos30Dias += centavos;
+                        }
+                        if (dia > hoje - 7) {
+                            resumo.vendasUltimos7Dias += vendas;
+                            resumo.centavosUltimos7Dias += centavos;
+                            resumo.vendaHoje |= dia == hoje;
+                        }
+                    }
+                    if (dia > hoje - 60 && dia < hoje - 30) {
+                        resumo.centavosAnteriores30Dias += centavos;
+                        resumo.vendasAnteriores30Dias += vendas;
+                    }
+                    if (dia >= hoje - 13 && dia <= hoje - 7) {
+                        resumo.centavosSemanaAnterior += centavos;
+                        resumo.vendasSemanaAnterior += vendas;
+                    }
+                    if (dia >= inicioMes && dia <= hoje) {
+                        resumo.centavosMesAtual += centavos;
+                    } else if (dia >= inicioMesAnterior && dia <= fimMesAnterior) {
+                        resumo.centavosMesAnterior += centavos;
+                    }
+                    if (dia >= inicioHistorico) {
+                        resumo.centavosPorDia[dia - primeiroDia] = centavos;
+                        resumo.vendasPorDia[dia - primeiroDia] = vendas;
+                    }
+                    break;
+                case DIA_SEMANA:
+                    resumo.centavosPorDiaSemana[agregado.getChave()] = agregado.getCentavos();
+                    resumo.vendasPorDiaSemana[agregado.getChave()] = agregado.getVendas();
+                    break;
+                case PRODUTO:
+                    int produto = dicionario.codificar(agregado.getProduto());
+                    resumo.quantidadePorProduto[produto] += agregado.getQuantidade();
+                    resumo.centavosPorProduto[produto] += agregado.getCentavos();
+                    resumo.vendasPorProduto[produto] += agregado.getVendas();
+                    resumo.vendasHistorico += agregado.getVendas();
+                    break;
+            }
+        }
+        resumo.calcularEstatisticasDiarias();
+        resumo.detectarAnomalias();
+        return resumo;
+    }
+
+    private void calcularEstatisticasDiarias() {
+        AcumuladorWelford estatisticas = new AcumuladorWelford();
+        for (int d = 0; d < centavosPorDia.length; d++) {
+            if (vendasPorDia[d] > 0) {
+                estatisticas.adicionar(centavosPorDia[d] / 100.0);
+            }
+        }
+        diasComVenda = (int) estatisticas.getQuantidade();
+        mediaDiaria = estatisticas.getMedia();
+        desvioPadraoDiario = estatisticas.getDesvioPadrao();
+    }
+
+    /**
+     * Repassa os dias em ordem como um fluxo: cada dia fechado é comparado com a base formada pelos
+     * dias anteriores e só então entra nela. O dia corrente, ainda aberto,
+     * só pode ser confirmado como excepcionalmente alto.
+     */
+    private void detectarAnomalias() {
+        DetectorAnomalias detector = AnalyticsEngine.novoDetectorAnomalias();
+        for (int d = 0; d < centavosPorDia.length; d++) {
+            int dia = primeiroDia + d;
+            if (vendasPorDia[d] == 0 || dia >= hoje) {
+                continue;
+            }
+            DetectorAnomalias.Anomalia anomalia = detector.fecharDia(dia, centavosPorDia[d] / 100.0);
+            if (anomalia != null) {
+                anomalias.add(anomalia);
+            }
+        }
+        int diaAberto = hoje - primeiroDia;
+        if (diaAberto >= 0 && diaAberto < centavosPorDia.length && vendasPorDia[diaAberto] > 0) {
+            adicionarAnomaliaDoDiaAberto(detector.avaliar(hoje, centavosPorDia[diaAberto] / 100.0));
+        }
+    }
+
+    void adicionarAnomaliaDoDiaAberto(DetectorAnomalias.Anomalia anomalia) {
+        if (anomalia != null && anomalia.isAcimaDaBase()) {
+            anomalias.add(anomalia);
+        }
+    }
+
+    /**
+     * @return primeiro dia cujos totais diários as janelas recentes e as comparações de semana e mês usam
+     */
+    public static int inicioDiasRecentes(int hoje) {
+        return Math.min(hoje - (DIAS_JANELA_RECENTE - 1), inicioMesAnterior(hoje));
+    }
+
+    static int inicioMes(int hoje) {
+        LocalDate data = LocalDate.ofEpochDay(hoje);
+        return (int) data.withDayOfMonth(1).toEpochDay();
+    }
+
+    static int inicioMesAnterior(int hoje) {
+        LocalDate data = LocalDate.ofEpochDay(hoje);
+        return (int) data.withDayOfMonth(1).minusMonths(1).toEpochDay();
+    }
+
+    /**
+     * @return o mesmo dia do mês anterior, ou o último dia dele se o mês anterior for mais curto
+     */
+    static int fimMesAnteriorComparavel(int hoje) {
+        LocalDate data = LocalDate.ofEpochDay(hoje);
+        return (int) data.minusMonths(1).toEpochDay();
+    }
+
+    static int diaDaSemana(int diaEpoch) {
+        // 1970-01-01 foi uma quinta-feira (índice 3)
+        return Math.floorMod(diaEpoch + 3, 7);
+    }
+
+    public int getHoje() { return hoje; }
+    public int getVendasJanelaRecente() { return vendasJanelaRecente; }
+    public int getVendasHistorico() { return vendasHistorico; }
+
+    public long getCentavosUltimos30Dias() { return centavosUltimos30Dias; }
+    public long getCentavosAnteriores30Dias() { return centavosAnteriores30Dias; }
+    public int getVendasAnteriores30Dias() { return vendasAnteriores30Dias; }
+    public long getCentavosUltimos7Dias() { return centavosUltimos7Dias; }
+    public int getVendasUltimos7Dias() { return vendasUltimos7Dias; }
+    public boolean isVendaHoje() { return vendaHoje; }
+    public long getCentavosSemanaAnterior() { return centavosSemanaAnterior; }
+    public int getVendasSemanaAnterior() { return vendasSemanaAnterior; }
+    public long getCentavosMesAtual() { return centavosMesAtual; }
+    public long getCentavosMesAnterior() { return centavosMesAnterior; }
+
+    public int getPrimeiroDia() { return primeiroDia; }
+    public int getTotalDias() { return centavosPorDia.length; }
+    public long getCentavosDoDia(int offset) { return centavosPorDia[offset]; }
+    public int getVendasDoDia(int offset) { return vendasPorDia[offset]; }
+
+    public int getDiasComVenda() { return diasComVenda; }
+    public double getMediaDiaria() { return mediaDiaria; }
+    public double getDesvioPadraoDiario() { return desvioPadraoDiario; }
+    public List<DetectorAnomalias.Anomalia> getAnomalias() { return anomalias; }
+
+    public long getCentavosDiaSemana(int diaSemana) { return centavosPorDiaSemana[diaSemana]; }
+    public int getVendasDiaSemana(int diaSemana) { return vendasPorDiaSemana[diaSemana]; }
+
+    public int getTotalProdutos() { return quantidadePorProduto.length; }
+    public long getQuantidadeProduto(int produto) { return quantidadePorProduto[produto]; }
+    public long getCentavosProduto(int produto) { return centavosPorProduto[produto]; }
+    public int getVendasProduto(int produto) { return vendasPorProduto[produto]; }
+}
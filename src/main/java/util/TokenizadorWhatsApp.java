@@ -0,0 +1,425 @@
+package util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Interpreta uma linha de conversa do WhatsApp em uma única passada, sem regex: remove o cabeçalho
+ * da exportação ("15/01/2024 14:30 - " ou "[15/01/2024, 14:30:05] ") e o remetente ("Maria: "),
+ * separa números e palavras e decide quantidade, valor e nome do produto.
+ * <p>
+ * Regras: o valor é o primeiro número marcado como dinheiro ("R$ 85,50", "45,90 reais"); sem marcação,
+ * o último número maior que 10. A quantidade é o primeiro número seguido de unidade ("2x", "4 unidades");
+ * sem unidade, o primeiro número inteiro que não seja o valor. "1.500" é mil e quinhentos e "1.500,00"
+ * ou "1500,5" têm casas decimais. O produto é o texto que sobra sem números e sem palavras de ligação.
+ */
+public final class TokenizadorWhatsApp {
+
+    private static final String[] PALAVRAS_IGNORADAS = {
+            "por", "cada", "x", "vendeu", "vendi", "comprei", "comprou",
+            "vendido", "vendidos", "vendida", "vendidas", "unidade", "unidades"
+    };
+    private static final String[] UNIDADES_QUANTIDADE = {"x", "un", "und", "unid", "unidade", "unidades", "vezes"};
+    private static final String[] UNIDADES_MOEDA = {"reais", "real"};
+    private static final int MAXIMO_DIGITOS = 15;
+    private static final double[] POTENCIAS_DE_DEZ = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15
+    };
+
+    private TokenizadorWhatsApp() {
+    }
+
+    public static Mensagem interpretar(String linha) {
+        int n = linha.length();
+        LocalDate data = null;
+        int inicio = 0;
+
+        int[] cabecalho = new int[3];
+        int fimCabecalho = lerCabecalho(linha, cabecalho);
+        if (fimCabecalho > 0) {
+            data = criarData(cabecalho[2], cabecalho[1], cabecalho[0]);
+            inicio = fimCabecalho;
+        }
+
+        // "Remetente: mensagem"; sem cabeçalho, o trecho também pode ser o produto ("Smartphone Samsung: 4 unidades")
+        String remetente = null;
+        int doisPontos = linha.indexOf(':', inicio);
+        if (doisPontos > inicio && doisPontos + 1 < n && linha.charAt(doisPontos + 1) == ' ') {
+            remetente = linha.substring(inicio, doisPontos).trim();
+            inicio = doisPontos + 2;
+        }
+
+        StringBuilder produto = new StringBuilder();
+        double valorMoeda = -1;
+        long quantidadeUnidade = -1;
+        long primeiroInteiro = -1;
+        int ordemPrimeiroInteiro = -1;
+        double ultimoNumero = -1;
+        int ordemUltimoNumero = -1;
+        int ordem = 0;
+        boolean moedaPendente = false;
+
+        int i = inicio;
+        while (i < n) {
+            char c = linha.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+                continue;
+            }
+
+            if (!digito(c)) {
+                int fimPalavra = i;
+                while (fimPalavra < n && !Character.isWhitespace(linha.charAt(fimPalavra)) && !digito(linha.charAt(fimPalavra))) {
+                    fimPalavra++;
+                }
+                int fimNucleo = fimPalavra;
+                while (fimNucleo > i && pontuacao(linha.charAt(fimNucleo - 1))) {
+                    fimNucleo--;
+                }
+                if (marcadorMoeda(linha, i, fimNucleo)) {
+                    moedaPendente = true;
+                } else {
+                    moedaPendente = false;
+                    if (temLetra(linha, i, fimNucleo) && !contem(PALAVRAS_IGNORADAS, linha, i, fimNucleo)) {
+                        if (produto.length() > 0) {
+                            produto.append(' ');
+                        }
+                        produto.append(linha, i, fimNucleo);
+                    }
+                }
+                i = fimPalavra;
+                continue;
+            }
+
+            // Número: dígitos com separadores "." ou "," entre eles
+            long mantissa = 0;
+            int digitos = 0;
+            int casas = 0;
+            char ultimoSeparador = 0;
+            int j = i;
+            while (j < n) {
+                char d = linha.charAt(j);
+                if (digito(d)) {
+                    if (mantissa != 0 || d != '0') {
+                        digitos++;
+                    }
+                    mantissa = mantissa * 10 + (d - '0');
+                    casas++;
+                    j++;
+                    if (digitos > MAXIMO_DIGITOS) {
+                        break;
+                    }
+                } else if ((d == '.' || d == ',') && j + 1 < n && digito(linha.charAt(j + 1))) {
+                    ultimoSeparador = d;
+                    casas = 0;
+                    j++;
+                } else {
+                    break;
+                }
+            }
+            while (j < n && (digito(linha.charAt(j)) || linha.charAt(j) == '.' || linha.charAt(j) == ',')) {
+                j++;
+            }
+            boolean decimal = ultimoSeparador != 0 && !(ultimoSeparador == '.' && casas == 3);
+            boolean valido = digitos <= MAXIMO_DIGITOS && (!decimal || casas < POTENCIAS_DE_DEZ.length);
+            double valor = decimal ? mantissa / POTENCIAS_DE_DEZ[Math.min(casas, POTENCIAS_DE_DEZ.length - 1)] : mantissa;
+
+            // Unidade logo após o número ("2x", "4 unidades", "45,90 reais") é consumida junto com ele
+            int k = j;
+            while (k < n && linha.charAt(k) == ' ') {
+                k++;
+            }
+            int fimUnidade = k;
+            while (fimUnidade < n && Character.isLetter(linha.charAt(fimUnidade))) {
+                fimUnidade++;
+            }
+            boolean unidadeQuantidade = false;
+            boolean unidadeMoeda = false;
+            if (fimUnidade > k && (fimUnidade == n || !Character.isLetterOrDigit(linha.charAt(fimUnidade)))) {
+                unidadeQuantidade = !decimal && contem(UNIDADES_QUANTIDADE, linha, k, fimUnidade);
+                unidadeMoeda = contem(UNIDADES_MOEDA, linha, k, fimUnidade);
+                if (unidadeQuantidade || unidadeMoeda) {
+                    j = fimUnidade;
+                }
+            }
+
+            if (valido) {
+                if ((moedaPendente || unidadeMoeda) && valorMoeda < 0) {
+                    valorMoeda = valor;
+                } else if (unidadeQuantidade) {
+                    if (quantidadeUnidade < 0) {
+                        quantidadeUnidade = mantissa;
+                    }
+                } else if (!moedaPendente && !unidadeMoeda) {
+                    if (!decimal && primeiroInteiro < 0) {
+                        primeiroInteiro = mantissa;
+                        ordemPrimeiroInteiro = ordem;
+                    }
+                    // Sem marcação de dinheiro, números até 10 são tratados como quantidade ou ruído
+                    if (valor > 10) {
+                        ultimoNumero = valor;
+                        ordemUltimoNumero = ordem;
+                    }
+                }
+                ordem++;
+            }
+            moedaPendente = false;
+            i = j;
+        }
+
+        double valor;
+        long quantidade;
+        if (valorMoeda >= 0) {
+            valor = valorMoeda;
+            quantidade = quantidadeUnidade >= 0 ? quantidadeUnidade : primeiroInteiro;
+        } else {
+            valor = ultimoNumero;
+            quantidade = quantidadeUnidade >= 0 ? quantidadeUnidade
+                    : ordemPrimeiroInteiro != ordemUltimoNumero ? primeiroInteiro : -1;
+        }
+        if (quantidade < 0 || quantidade > Integer.MAX_VALUE) {
+            quantidade = 1;
+        }
+
+        String nome = produto.toString();
+        if (nome.isEmpty() && remetente != null && fimCabecalho == 0) {
+            nome = remetente;
+        }
+        return new Mensagem(linha.substring(inicio).trim(), nome, (int) quantidade, Math.max(0, valor), data);
+    }
+
+    /**
+     * Reconhece "dd/MM/yyyy HH:mm - " (Android) e "[dd/MM/yyyy, HH:mm:ss] " (iPhone) no início da linha
+     * @param data recebe dia, mês e ano
+     * @return posição logo após o cabeçalho, ou 0 se a linha não começar com um
+     */
+    private static int lerCabecalho(String linha, int[] data) {
+        int n = linha.length();
+        boolean colchete = n > 0 && linha.charAt(0) == '[';
+        int i = colchete ? 1 : 0;
+
+        for (int parte = 0; parte < 3; parte++) {
+            int inicio = i;
+            int valor = 0;
+            while (i < n && digito(linha.charAt(i)) && i - inicio < 4) {
+                valor = valor * 10 + (linha.charAt(i++) - '0');
+            }
+            int tamanho = i - inicio;
+            if (tamanho == 0 || (parte < 2 && tamanho > 2) || (parte == 2 && tamanho != 2 && tamanho != 4)) {
+                return 0;
+            }
+            data[parte] = parte == 2 && tamanho == 2 ? 2000 + valor : valor;
+            if (parte < 2) {
+                if (i >= n || linha.charAt(i) != '/') {
+                    return 0;
+                }
+                i++;
+            }
+        }
+
+        if (i < n && linha.charAt(i) == ',') {
+            i++;
+        }
+        int espacos = i;
+        while (i < n && linha.charAt(i) == ' ') {
+            i++;
+        }
+        if (i == espacos) {
+            return 0;
+        }
+
+        // HH:mm com segundos opcionais
+        for (int parte = 0; parte < 3; parte++) {
+            int inicio = i;
+            while (i < n && digito(linha.charAt(i)) && i - inicio < 2) {
+                i++;
+            }
+            if (i == inicio) {
+                return 0;
+            }
+            if (parte == 2 || i >= n || linha.charAt(i) != ':') {
+                break;
+            }
+            i++;
+        }
+
+        if (colchete) {
+            if (i >= n || linha.charAt(i) != ']') {
+                return 0;
+            }
+            i++;
+        } else {
+            while (i < n && linha.charAt(i) == ' ') {
+                i++;
+            }
+            if (i >= n || linha.charAt(i) != '-') {
+                return 0;
+            }
+            i++;
+        }
+        while (i < n && linha.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static LocalDate criarData(int ano, int mes, int dia) {
+        try {
+            return LocalDate.of(ano, mes, dia);
+        } catch (DateTimeException e) {
+            return null;
+        }
+    }
+
+    private static boolean marcadorMoeda(String linha, int inicio, int fim) {
+        int tamanho = fim - inicio;
+        if (tamanho == 1) {
+            char c = linha.charAt(inicio);
+            return c == '$' || c == 'R';
+        }
+        return tamanho == 2 && linha.regionMatches(true, inicio, "R$", 0, 2);
+    }
+
+    private static boolean contem(String[] palavras, String linha, int inicio, int fim) {
+        int tamanho = fim - inicio;
+        for (String palavra : palavras) {
+            if (palavra.length() == tamanho && linha.regionMatches(true, inicio, palavra, 0, tamanho)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean temLetra(String linha, int inicio, int fim) {
+        for (int i = inicio; i < fim; i++) {
+            if (Character.isLetter(linha.charAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean digito(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean pontuacao(char c) {
+        return c == '.' || c == ',' || c == ';' || c == ':' || c == '!' || c == '?';
+    }
+
+    /**
+     * Resultado da interpretação; {@link #isVenda()} indica se a linha tem um valor
+     */
+    public static class Mensagem {
+        private final String texto;
+        private final String produto;
+        private final int quantidade;
+        private final double valor;
+        private final LocalDate data;
+
+        Mensagem(String texto, String produto, int quantidade, double valor, LocalDate data) {
+            this.texto = texto;
+            this.produto = produto;
+            this.quantidade = quantidade;
+            this.valor = valor;
+            this.data = data;
+        }
+
+        /**
+         * @return a mensagem sem cabeçalho e sem remetente
+         */
+        public String getTexto() { return texto; }
+
+        /**
+         * @return nome do produto, ou vazio se a linha só tiver números e palavras de ligação
+         */
+        public String getProduto() { return produto; }
+        public int getQuantidade() { return quantidade; }
+        public double getValor() { return valor; }
+
+        /**
+         * @return data do cabeçalho da exportação, ou null se a linha não tiver cabeçalho
+         */
+        public LocalDate getData() { return data; }
+
+        public boolean isVenda() { return valor > 0; }
+    }
+
+    /**
+     * Benchmark: {@code [arquivo] [--importar]}. Sem arquivo, gera um ano de conversa sintética (1M linhas).
+     * Com --importar, mede também DataImporter.importFromWhatsApp sobre o mesmo texto (tokenização,
+     * pipeline, avisos e gravação); as vendas são gravadas no banco configurado, então roda uma única vez.
+     */
+    public static void main(String[] args) throws IOException {
+        String arquivo = null;
+        boolean importar = false;
+        for (String arg : args) {
+            if ("--importar".equals(arg)) {
+                importar = true;
+            } else {
+                arquivo = arg;
+            }
+        }
+        List<String> linhas = arquivo != null
+                ? Files.readAllLines(Paths.get(arquivo), StandardCharsets.UTF_8)
+                : gerarConversa(1_000_000);
+        long bytes = 0;
+        for (String linha : linhas) {
+            bytes += linha.length() + 1;
+        }
+        System.out.println("=== BENCHMARK TOKENIZADOR WHATSAPP ===");
+        System.out.println("Linhas: " + linhas.size());
+
+        for (int rodada = 1; rodada <= 5; rodada++) {
+            long inicio = System.nanoTime();
+            int vendas = 0;
+            for (String linha : linhas) {
+                if (interpretar(linha).isVenda()) {
+                    vendas++;
+                }
+            }
+            double segundos = (System.nanoTime() - inicio) / 1e9;
+            System.out.printf("Rodada %d: %.0f linhas/s, %.1f MB/s, %d vendas (%.3f s)%n", rodada,
+                    linhas.size() / segundos, bytes / segundos / (1024 * 1024), vendas, segundos);
+        }
+
+        if (!importar) {
+            System.out.println("Use --importar para medir também importFromWhatsApp (grava no banco)");
+            return;
+        }
+        String texto = String.join("\n", linhas);
+        long inicio = System.nanoTime();
+        DataImporter.ImportResult resultado = new DataImporter().importFromWhatsApp(texto);
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        System.out.printf("importFromWhatsApp: %.0f linhas/s, %.1f MB/s (%.3f s) - %s%n",
+                linhas.size() / segundos, bytes / segundos / (1024 * 1024), segundos, resultado.getSummary());
+    }
+
+    private static List<String> gerarConversa(int total) {
+        String[] modelos = {
+                "Vendeu %d Mouse Logitech por R$ %d,50 cada",
+                "João: Comprei %d Teclado Mecânico R$ %d,00",
+                "Maria vendeu %d Notebook Dell - R$ %d cada",
+                "%d Carregador USB-C vendidos por %d,90 reais",
+                "Smartphone Samsung: %d unidades x R$ %d",
+                "Bom dia pessoal, alguém viu o pedido de ontem?"
+        };
+        List<String> linhas = new ArrayList<>(total);
+        LocalDate dia = LocalDate.now().minusYears(1);
+        for (int i = 0; i < total; i++) {
+            if (i % 3000 == 0) {
+                dia = dia.plusDays(1);
+            }
+            String mensagem = String.format(modelos[i % modelos.length], 1 + i % 9, 10 + i % 2000);
+            linhas.add(String.format("%02d/%02d/%d %02d:%02d - Loja Centro: %s", dia.getDayOfMonth(),
+                    dia.getMonthValue(), dia.getYear(), i % 24, i % 60, mensagem));
+        }
+        return linhas;
+    }
+}
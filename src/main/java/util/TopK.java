@@ -0,0 +1,107 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Seleção dos K maiores valores de uma sequência de pares (id, valor) em O(n log k),
+ * sem ordenar a sequência inteira. Mantém um heap mínimo de tamanho K em arrays primitivos:
+ * a raiz é o pior dos K melhores vistos até agora. Em caso de empate vence o menor id.
+ */
+public class TopK {
+
+    private final int[] ids;
+    private final long[] valores;
+    private int tamanho = 0;
+
+    public TopK(int k) {
+        if (k <= 0) {
+            throw new IllegalArgumentException("K deve ser positivo: " + k);
+        }
+        this.ids = new int[k];
+        this.valores = new long[k];
+    }
+
+    public void oferecer(int id, long valor) {
+        if (tamanho < ids.length) {
+            ids[tamanho] = id;
+            valores[tamanho] = valor;
+            subir(tamanho++);
+        } else if (melhor(id, valor, ids[0], valores[0])) {
+            ids[0] = id;
+            valores[0] = valor;
+            descer(0, tamanho);
+        }
+    }
+
+    /**
+     * @return ids selecionados do maior para o menor valor; o heap continua intacto
+     */
+    public int[] ordenados() {
+        int[] heapIds = Arrays.copyOf(ids, tamanho);
+        long[] heapValores = Arrays.copyOf(valores, tamanho);
+        int[] resultado = new int[tamanho];
+        // Heapsort sobre a cópia: cada remoção da raiz sai do pior para o melhor
+        for (int restante = tamanho; restante > 0; restante--) {
+            resultado[restante - 1] = heapIds[0];
+            heapIds[0] = heapIds[restante - 1];
+            heapValores[0] = heapValores[restante - 1];
+            descer(heapIds, heapValores, 0, restante - 1);
+        }
+        return resultado;
+    }
+
+    public int tamanho() {
+        return tamanho;
+    }
+
+    public int getK() {
+        return ids.length;
+    }
+
+    private static boolean melhor(int id, long valor, int outroId, long outroValor) {
+        return valor > outroValor || (valor == outroValor && id < outroId);
+    }
+
+    private void subir(int i) {
+        while (i > 0) {
+            int pai = (i - 1) >>> 1;
+            if (!melhor(ids[pai], valores[pai], ids[i], valores[i])) {
+                break;
+            }
+            trocar(ids, valores, i, pai);
+            i = pai;
+        }
+    }
+
+    private void descer(int i, int limite) {
+        descer(ids, valores, i, limite);
+    }
+
+    private static void descer(int[] ids, long[] valores, int i, int limite) {
+        while (true) {
+            int pior = i;
+            int esquerda = 2 * i + 1;
+            int direita = esquerda + 1;
+            if (esquerda < limite && melhor(ids[pior], valores[pior], ids[esquerda], valores[esquerda])) {
+                pior = esquerda;
+            }
+            if (direita < limite && melhor(ids[pior], valores[pior], ids[direita], valores[direita])) {
+                pior = direita;
+            }
+            if (pior == i) {
+                return;
+            }
+            trocar(ids, valores, i, pior);
+            i = pior;
+        }
+    }
+
+    private static void trocar(int[] ids, long[] valores, int a, int b) {
+        int id = ids[a];
+        ids[a] = ids[b];
+        ids[b] = id;
+        long valor = valores[a];
+        valores[a] = valores[b];
+        valores[b] = valor;
+    }
+}
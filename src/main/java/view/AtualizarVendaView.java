@@ -1,8 +1,8 @@
 package view;
 
 import controller.VendaController;
+import dao.VendaConcorrenciaException;
 import model.Venda;
-import listener.VendaListener;
 import util.ColorPalette;
 
 import javax.swing.*;
@@ -19,11 +19,9 @@ public class AtualizarVendaView extends JDialog {
     private JTextField txtValorUnitario;
     private JButton btnAtualizar;
     private Venda vendaSelecionada;
-    private final VendaListener vendaListener;
 
-    public AtualizarVendaView(JFrame parent, VendaListener listener) {
+    public AtualizarVendaView(JFrame parent) {
         super(parent, "Atualizar Venda", true);
-        this.vendaListener = listener;
         setSize(550, 500);
         setLocationRelativeTo(parent);
         setLayout(new BorderLayout());
@@ -219,16 +217,16 @@ public class AtualizarVendaView extends JDialog {
             int resposta = JOptionPane.showConfirmDialog(this, "Confirma a atualização desta venda?", "Confirmar Atualização", JOptionPane.YES_NO_OPTION);
 
             if (resposta == JOptionPane.YES_OPTION) {
-                Venda vendaAtualizada = new Venda(vendaSelecionada.getId(), produto, quantidade, valor, vendaSelecionada.getData());
+                Venda vendaAtualizada = new Venda(vendaSelecionada.getId(), produto, quantidade, valor,
+                        vendaSelecionada.getData(), vendaSelecionada.getVersao());
                 vendaController.atualizarVenda(vendaAtualizada);
 
-                if (vendaListener != null) {
-                    vendaListener.onVendasChanged();
-                }
-
                 JOptionPane.showMessageDialog(this, "Venda atualizada com sucesso!", "Atualização Realizada", JOptionPane.INFORMATION_MESSAGE);
                 dispose();
             }
+        } catch (VendaConcorrenciaException ex) {
+            JOptionPane.showMessageDialog(this, ex.getMessage(), "Venda Alterada por Outro Usuário", JOptionPane.WARNING_MESSAGE);
+            carregarVendas();
         } catch (NumberFormatException ex) {
             JOptionPane.showMessageDialog(this, "Valores de quantidade e/ou valor unitário são inválidos.", "Formato Inválido", JOptionPane.ERROR_MESSAGE);
         } catch (Exception ex) {
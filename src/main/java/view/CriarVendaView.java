@@ -2,7 +2,6 @@ package view;
 
 import controller.VendaController;
 import model.Venda;
-import listener.VendaListener;
 import util.ColorPalette;
 
 import javax.swing.*;
@@ -17,11 +16,9 @@ public class CriarVendaView extends JDialog {
     private JTextField txtQuantidade;
     private JTextField txtValorUnitario;
     private final VendaController vendaController = new VendaController();
-    private final VendaListener vendaListener;
 
-    public CriarVendaView(JFrame parent, VendaListener listener) {
+    public CriarVendaView(JFrame parent) {
         super(parent, "Nova Venda", true);
-        this.vendaListener = listener;
         configurarJanela();
         criarInterface();
         setVisible(true);
@@ -169,10 +166,6 @@ public class CriarVendaView extends JDialog {
             Venda venda = new Venda(produto, quantidade, valor, Date.valueOf(LocalDate.now()));
             vendaController.salvarVenda(venda);
 
-            if (vendaListener != null) {
-                vendaListener.onVendasChanged();
-            }
-
             mostrarSucesso("Venda registrada com sucesso!");
             dispose();
 
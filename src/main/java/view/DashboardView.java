@@ -2,7 +2,9 @@ package view;
 
 import controller.VendaController;
 import model.Venda;
+import model.VendaStore;
 import util.RGraphUtil;
+import listener.VendaEventBus;
 import listener.VendaListener;
 
 import javax.swing.*;
@@ -26,6 +28,7 @@ public class DashboardView extends JFrame implements VendaListener {
         super("SellOut EasyTrack - Dashboard Executivo");
         configurarJanela();
         criarInterface();
+        VendaEventBus.getInstancia().registrar(this);
         setVisible(true);
     }
 
@@ -321,7 +324,7 @@ public class DashboardView extends JFrame implements VendaListener {
 
         criarItem.addActionListener(e -> {
             crudMenu.setVisible(false);
-            new CriarVendaView(this, this);
+            new CriarVendaView(this);
         });
 
         lerItem.addActionListener(e -> {
@@ -331,12 +334,12 @@ public class DashboardView extends JFrame implements VendaListener {
 
         atualizarItem.addActionListener(e -> {
             crudMenu.setVisible(false);
-            new AtualizarVendaView(this, this);
+            new AtualizarVendaView(this);
         });
 
         deletarItem.addActionListener(e -> {
             crudMenu.setVisible(false);
-            new DeletarVendaView(this, this);
+            new DeletarVendaView(this);
         });
 
         crudMenu.add(criarItem);
@@ -418,10 +421,10 @@ public class DashboardView extends JFrame implements VendaListener {
                 opcoes[0]
         );
         switch (escolha) {
-            case 0: new CriarVendaView(this, this); break;
+            case 0: new CriarVendaView(this); break;
             case 1: new ListarVendasView(this); break;
-            case 2: new AtualizarVendaView(this, this); break;
-            case 3: new DeletarVendaView(this, this); break;
+            case 2: new AtualizarVendaView(this); break;
+            case 3: new DeletarVendaView(this); break;
             default: break;
         }
     }
@@ -532,12 +535,11 @@ public class DashboardView extends JFrame implements VendaListener {
 
     private void exportarCSV() {
         try {
-            List<Venda> vendas = vendaController.obterTodasVendas();
             JFileChooser chooser = new JFileChooser();
             chooser.setDialogTitle("Exportar Dados de Vendas");
             if (chooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
                 String path = chooser.getSelectedFile().getAbsolutePath() + ".csv";
-                util.ReportUtil.exportarCSV(vendas, path);
+                util.ReportUtil.exportarCSV(vendaController, path);
                 JOptionPane.showMessageDialog(this,
                         "Dados exportados com sucesso!\n\nArquivo: " + path,
                         "Exportação Concluída",
@@ -564,8 +566,8 @@ public class DashboardView extends JFrame implements VendaListener {
 
     private void gerarGraficoR() {
         try {
-            List<Venda> vendas = vendaController.obterTodasVendas();
-            System.out.println("Gerando gráfico 1080p com " + vendas.size() + " vendas");
+            VendaStore vendas = vendaController.obterStore();
+            System.out.println("Gerando gráfico 1080p com " + vendas.tamanho() + " vendas");
             mostrarLoading();
             SwingWorker<String, Void> worker = new SwingWorker<>() {
                 @Override
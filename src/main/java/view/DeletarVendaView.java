@@ -1,8 +1,8 @@
 package view;
 
 import controller.VendaController;
+import dao.VendaConcorrenciaException;
 import model.Venda;
-import listener.VendaListener;
 import util.ColorPalette;
 
 import javax.swing.*;
@@ -11,8 +11,10 @@ import javax.swing.table.JTableHeader;
 import java.awt.*;
 import java.sql.SQLException;
 import java.text.NumberFormat;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 public class DeletarVendaView extends JDialog {
 
@@ -20,11 +22,10 @@ public class DeletarVendaView extends JDialog {
     private JTable tabelaVendas;
     private DefaultTableModel modeloTabela;
     private JButton btnDeletar;
-    private final VendaListener vendaListener;
+    private final Map<Integer, Integer> versoesCarregadas = new HashMap<>();
 
-    public DeletarVendaView(JFrame parent, VendaListener listener) {
+    public DeletarVendaView(JFrame parent) {
         super(parent, "Deletar Venda", true);
-        this.vendaListener = listener;
         setSize(850, 600);
         setLocationRelativeTo(parent);
         setLayout(new BorderLayout());
@@ -133,6 +134,7 @@ public class DeletarVendaView extends JDialog {
             tabelaVendas.clearSelection();
             btnDeletar.setEnabled(false);
             modeloTabela.setRowCount(0);
+            versoesCarregadas.clear();
 
             List<Venda> vendas = vendaController.obterTodasVendas();
 
@@ -146,6 +148,7 @@ public class DeletarVendaView extends JDialog {
 
             for (Venda venda : vendas) {
                 double valorTotal = venda.getQuantidade() * venda.getValorUnitario();
+                versoesCarregadas.put(venda.getId(), venda.getVersao());
 
                 Object[] linha = {
                         venda.getId(),
@@ -207,11 +210,7 @@ public class DeletarVendaView extends JDialog {
 
         if (resposta == 0) {
             try {
-                vendaController.deletarVenda(id);
-
-                if (vendaListener != null) {
-                    vendaListener.onVendasChanged();
-                }
+                vendaController.deletarVenda(id, versoesCarregadas.getOrDefault(id, 0));
 
                 JOptionPane.showMessageDialog(this,
                         " Venda deletada com sucesso!",
@@ -220,6 +219,12 @@ public class DeletarVendaView extends JDialog {
 
                 carregarVendas();
 
+            } catch (VendaConcorrenciaException ex) {
+                JOptionPane.showMessageDialog(this,
+                        " " + ex.getMessage() + "\nA lista será atualizada automaticamente.",
+                        "Venda Alterada por Outro Usuário",
+                        JOptionPane.WARNING_MESSAGE);
+                carregarVendas();
             } catch (SQLException ex) {
                 String mensagemErro = " Erro ao deletar venda do banco de dados:\n\n" + ex.getMessage();
                 if (ex.getMessage().contains("não encontrada")) {
@@ -1,6 +1,7 @@
 package view;
 
 import controller.VendaController;
+import model.DashboardSummary;
 import model.Venda;
 import util.ColorPalette;
 
@@ -15,11 +16,17 @@ import java.util.Locale;
 
 public class ListarVendasView extends JDialog {
 
+    private static final int TAMANHO_PAGINA = 500;
+
     private final VendaController vendaController = new VendaController();
+    private final NumberFormat formatoMoeda = NumberFormat.getCurrencyInstance(new Locale("pt", "BR"));
     private JTable tabelaVendas;
     private DefaultTableModel modeloTabela;
     private JLabel lblTotalVendas;
     private JLabel lblValorTotal;
+    private JButton btnCarregarMais;
+    private int ultimoIdCarregado = 0;
+    private int totalVendasBanco = 0;
 
     public ListarVendasView(JFrame parent) {
         super(parent, "Listar Vendas", true);
@@ -90,6 +97,13 @@ public class ListarVendasView extends JDialog {
         btnAtualizar.setFocusPainted(false);
         btnAtualizar.setBorder(BorderFactory.createEmptyBorder(10, 30, 10, 30));
 
+        btnCarregarMais = new JButton("Carregar Mais");
+        btnCarregarMais.setBackground(ColorPalette.FIAP_PINK_DARK);
+        btnCarregarMais.setForeground(Color.WHITE);
+        btnCarregarMais.setFocusPainted(false);
+        btnCarregarMais.setBorder(BorderFactory.createEmptyBorder(10, 30, 10, 30));
+        btnCarregarMais.setEnabled(false);
+
         JButton btnFechar = new JButton("Fechar");
         btnFechar.setBackground(new Color(140, 140, 140));
         btnFechar.setForeground(Color.WHITE);
@@ -99,10 +113,12 @@ public class ListarVendasView extends JDialog {
         JPanel wrapperBotoes = new JPanel(new GridLayout(1, 0, 10, 0));
         wrapperBotoes.setOpaque(false);
         wrapperBotoes.add(btnAtualizar);
+        wrapperBotoes.add(btnCarregarMais);
         wrapperBotoes.add(btnFechar);
         painelBotoes.add(wrapperBotoes);
 
         btnAtualizar.addActionListener(e -> carregarVendas());
+        btnCarregarMais.addActionListener(e -> carregarProximaPagina());
         btnFechar.addActionListener(e -> dispose());
 
         add(painelTitulo, BorderLayout.NORTH);
@@ -122,21 +138,41 @@ public class ListarVendasView extends JDialog {
     private void carregarVendas() {
         try {
             modeloTabela.setRowCount(0);
+            ultimoIdCarregado = 0;
 
-            List<Venda> vendas = vendaController.obterTodasVendas();
+            DashboardSummary resumo = vendaController.obterResumoDashboard();
+            totalVendasBanco = resumo.getTotalVendas();
+            double valorTotalGeral = resumo.getFaturamentoTotal();
+
+            lblTotalVendas.setText("Total de Vendas: " + totalVendasBanco);
+            lblValorTotal.setText("Valor Total: " + formatoMoeda.format(valorTotalGeral));
 
-            if (vendas.isEmpty()) {
-                lblTotalVendas.setText("Total de Vendas: 0");
-                lblValorTotal.setText("Valor Total: R$ 0,00");
+            if (totalVendasBanco == 0) {
+                btnCarregarMais.setEnabled(false);
                 return;
             }
 
-            NumberFormat formatoMoeda = NumberFormat.getCurrencyInstance(new Locale("pt", "BR"));
-            double valorTotalGeral = 0;
+            carregarProximaPagina();
+
+        } catch (SQLException e) {
+            JOptionPane.showMessageDialog(this,
+                    "Erro ao carregar vendas: " + e.getMessage(),
+                    "Erro de Banco de Dados",
+                    JOptionPane.ERROR_MESSAGE);
+        } catch (Exception e) {
+            JOptionPane.showMessageDialog(this,
+                    "Erro inesperado: " + e.getMessage(),
+                    "Erro",
+                    JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private void carregarProximaPagina() {
+        try {
+            List<Venda> vendas = vendaController.obterVendasPaginadas(ultimoIdCarregado, TAMANHO_PAGINA);
 
             for (Venda venda : vendas) {
                 double valorTotal = venda.getQuantidade() * venda.getValorUnitario();
-                valorTotalGeral += valorTotal;
 
                 Object[] linha = {
                         venda.getId(),
@@ -150,19 +186,21 @@ public class ListarVendasView extends JDialog {
                 modeloTabela.addRow(linha);
             }
 
-            lblTotalVendas.setText("Total de Vendas: " + vendas.size());
-            lblValorTotal.setText("Valor Total: " + formatoMoeda.format(valorTotalGeral));
+            if (!vendas.isEmpty()) {
+                ultimoIdCarregado = vendas.get(vendas.size() - 1).getId();
+            }
+
+            boolean haMais = vendas.size() == TAMANHO_PAGINA;
+            btnCarregarMais.setEnabled(haMais);
+            btnCarregarMais.setText(haMais
+                    ? String.format("Carregar Mais (%d de %d)", modeloTabela.getRowCount(), totalVendasBanco)
+                    : "Carregar Mais");
 
         } catch (SQLException e) {
             JOptionPane.showMessageDialog(this,
                     "Erro ao carregar vendas: " + e.getMessage(),
                     "Erro de Banco de Dados",
                     JOptionPane.ERROR_MESSAGE);
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                    "Erro inesperado: " + e.getMessage(),
-                    "Erro",
-                    JOptionPane.ERROR_MESSAGE);
         }
     }
-}
\ No newline at end of file
+}
@@ -1,13 +1,11 @@
 package view;
 
 import controller.VendaController;
-import model.Venda;
+import model.DashboardSummary;
 
 import javax.swing.*;
 import java.awt.*;
 import java.sql.SQLException;
-import java.util.List;
-import java.util.Map;
 
 public class RelatorioView extends JDialog {
 
@@ -39,29 +37,23 @@ public class RelatorioView extends JDialog {
 
     private void gerarRelatorio() {
         try {
-            List<Venda> vendas = vendaController.obterTodasVendas();
+            DashboardSummary resumo = vendaController.obterResumoDashboard();
 
-            if (vendas.isEmpty()) {
+            if (resumo.isVazio()) {
                 txtRelatorio.setText("Nenhuma venda registrada.");
                 return;
             }
 
-            int totalVendas = vendas.size();
-            double somaTotal = vendas.stream().mapToDouble(v -> v.getQuantidade() * v.getValorUnitario()).sum();
-            double ticketMedio = somaTotal / totalVendas;
-
-            Map<String, Integer> produtoMaisVendido = vendaController.obterProdutoMaisVendido();
-
             StringBuilder sb = new StringBuilder();
             sb.append("======= Relatório SellOut EasyTrack =======\n\n");
-            sb.append("Total de vendas registradas: ").append(totalVendas).append("\n");
-            sb.append(String.format("Total geral em vendas: R$ %.2f\n", somaTotal));
-            sb.append(String.format("Ticket Médio: R$ %.2f\n\n", ticketMedio));
+            sb.append("Total de vendas registradas: ").append(resumo.getTotalVendas()).append("\n");
+            sb.append(String.format("Total geral em vendas: R$ %.2f\n", resumo.getFaturamentoTotal()));
+            sb.append(String.format("Ticket Médio: R$ %.2f\n", resumo.getTicketMedio()));
+            sb.append("Período: ").append(resumo.getPrimeiraVenda()).append(" a ").append(resumo.getUltimaVenda()).append("\n\n");
 
             sb.append("Produto(s) mais vendido(s):\n");
-            for (Map.Entry<String, Integer> entry : produtoMaisVendido.entrySet()) {
-                sb.append("- ").append(entry.getKey()).append(": ").append(entry.getValue()).append(" unidades\n");
-            }
+            sb.append("- ").append(resumo.getProdutoMaisVendido()).append(": ")
+                    .append(resumo.getQuantidadeProdutoMaisVendido()).append(" unidades\n");
 
             txtRelatorio.setText(sb.toString());
 
@@ -8,13 +8,18 @@ import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import controller.VendaController;
+import model.DashboardSummary;
 import model.Venda;
+import model.VendaStore;
 import util.AnalyticsEngine;
 import util.DataImporter;
+import listener.VendaEvent;
+import listener.VendaEventBus;
 import listener.VendaListener;
 import util.ColorPalette;
 import java.util.Set;
@@ -39,6 +44,7 @@ import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Locale;
+import java.util.concurrent.ExecutionException;
 
 public class SimplifiedDashboardView extends JFrame implements VendaListener {
 
@@ -50,11 +56,20 @@ public class SimplifiedDashboardView extends JFrame implements VendaListener {
     private JPanel insightsPanel;
     private JPanel statsPanel;
 
+    // Só acessados na EDT: um pedido de insights durante uma geração é atendido uma vez, quando ela termina
+    private SwingWorker<?, ?> geracaoInsights;
+    private boolean insightsPendentes = false;
+    // Só a leitura de estatísticas mais recente atualiza a barra lateral
+    private int geracaoEstatisticas = 0;
+    // Quantidade por produto do gráfico exibido; o R só é chamado de novo se ela mudar
+    private volatile Map<String, Integer> dadosGraficoExibido;
+
     public SimplifiedDashboardView() {
         super("SellOut EasyTrack - Dashboard Inteligente");
         configurarJanela();
         criarInterface();
         atualizarDashboard();
+        VendaEventBus.getInstancia().registrar(this);
         setVisible(true);
     }
 
@@ -63,6 +78,24 @@ public class SimplifiedDashboardView extends JFrame implements VendaListener {
         atualizarDashboard();
     }
 
+    /**
+     * Uma entrega do barramento já agrupa todas as alterações da janela (ou da importação inteira).
+     * As estatísticas da barra lateral são O(1) e sempre refeitas; os insights são agrupados com uma
+     * geração em andamento; o gráfico (quantidade por produto, via R) é refeito direto quando vendas
+     * entram ou saem e, quando o evento só traz atualizações, apenas se a quantidade por produto mudou
+     * (editar valor ou data não muda o gráfico).
+     */
+    @Override
+    public void onVendasChanged(VendaEvent evento) {
+        if (!evento.alterouDados()) {
+            return;
+        }
+        updateStatsInSidebar();
+        atualizarInsights();
+        boolean mudouConjunto = evento.contem(VendaEvent.Tipo.INSERCAO) || evento.contem(VendaEvent.Tipo.REMOCAO);
+        atualizarGraficos(!mudouConjunto);
+    }
+
     private void configurarJanela() {
         setDefaultCloseOperation(EXIT_ON_CLOSE);
         setExtendedState(JFrame.MAXIMIZED_BOTH);
@@ -139,7 +172,7 @@ public class SimplifiedDashboardView extends JFrame implements VendaListener {
         sidebar.add(Box.createVerticalStrut(5));
         sidebar.add(Box.createVerticalGlue());
 
-        statsPanel = criarPainelEstatisticas();
+        statsPanel = criarPainelEstatisticas(null, false);
         statsPanel.setName("statsPanel");
         sidebar.add(statsPanel);
 
@@ -239,7 +272,10 @@ public class SimplifiedDashboardView extends JFrame implements VendaListener {
         return container;
     }
 
-    private JPanel criarPainelEstatisticas() {
+    /**
+     * @param resumo estatísticas lidas fora da EDT; null enquanto carrega ou se a leitura falhou
+     */
+    private JPanel criarPainelEstatisticas(DashboardSummary resumo, boolean erro) {
         JPanel panel = new JPanel();
         panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
         panel.setOpaque(false);
@@ -250,13 +286,10 @@ public class SimplifiedDashboardView extends JFrame implements VendaListener {
         titleLabel.setForeground(Color.WHITE);
         titleLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
 
-        try {
-            List<Venda> vendas = vendaController.obterTodasVendas();
-            double faturamento = vendas.stream()
-                    .mapToDouble(v -> v.getQuantidade() * v.getValorUnitario())
-                    .sum();
+        if (resumo != null) {
+            double faturamento = resumo.getFaturamentoTotal();
 
-            JLabel vendasLabel = new JLabel(String.format("Vendas: %d", vendas.size()));
+            JLabel vendasLabel = new JLabel(String.format("Vendas: %d", resumo.getTotalVendas()));
             vendasLabel.setForeground(Color.WHITE);
             vendasLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
 
@@ -270,11 +303,18 @@ public class SimplifiedDashboardView extends JFrame implements VendaListener {
             panel.add(vendasLabel);
             panel.add(faturamentoLabel);
 
-        } catch (SQLException e) {
+        } else if (erro) {
             JLabel errorLabel = new JLabel("Erro ao carregar");
             errorLabel.setForeground(new Color(231, 76, 60));
             errorLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
             panel.add(errorLabel);
+        } else {
+            JLabel carregandoLabel = new JLabel("Carregando...");
+            carregandoLabel.setForeground(Color.LIGHT_GRAY);
+            carregandoLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+            panel.add(titleLabel);
+            panel.add(Box.createVerticalStrut(5));
+            panel.add(carregandoLabel);
         }
 
         return panel;
@@ -458,10 +498,10 @@ public class SimplifiedDashboardView extends JFrame implements VendaListener {
         JButton btnAtualizar = criarBotaoDialog("Atualizar Venda", "Editar informações de venda existente");
         JButton btnDeletar = criarBotaoDialog("Deletar Venda", "Remover venda do sistema");
 
-        btnCriar.addActionListener(e -> { dialog.dispose(); new CriarVendaView(this, this); });
+        btnCriar.addActionListener(e -> { dialog.dispose(); new CriarVendaView(this); });
         btnListar.addActionListener(e -> { dialog.dispose(); new ListarVendasView(this); });
-        btnAtualizar.addActionListener(e -> { dialog.dispose(); new AtualizarVendaView(this, this); });
-        btnDeletar.addActionListener(e -> { dialog.dispose(); new DeletarVendaView(this, this); });
+        btnAtualizar.addActionListener(e -> { dialog.dispose(); new AtualizarVendaView(this); });
+        btnDeletar.addActionListener(e -> { dialog.dispose(); new DeletarVendaView(this); });
 
         btnCriar.setAlignmentX(Component.CENTER_ALIGNMENT);
         btnListar.setAlignmentX(Component.CENTER_ALIGNMENT);
@@ -570,6 +610,10 @@ public class SimplifiedDashboardView extends JFrame implements VendaListener {
     }
 
     private void atualizarInsights() {
+        if (geracaoInsights != null) {
+            insightsPendentes = true;
+            return;
+        }
         System.out.println(" Atualizando insights...");
 
         insightsPanel.removeAll();
@@ -581,13 +625,26 @@ public class SimplifiedDashboardView extends JFrame implements VendaListener {
         insightsPanel.revalidate();
         insightsPanel.repaint();
 
-        SwingWorker<List<AnalyticsEngine.Insight>, Void> worker =
+        SwingWorker<List<AnalyticsEngine.Insight>, AnalyticsEngine.ResultadoAnalise> worker =
                 new SwingWorker<>() {
+                    private final List<AnalyticsEngine.Insight> parciais = new ArrayList<>();
+
                     @Override
                     protected List<AnalyticsEngine.Insight> doInBackground() throws Exception {
-                        List<Venda> vendas = vendaController.obterTodasVendas();
-                        System.out.println(" Carregando " + vendas.size() + " vendas para insights");
-                        return analyticsEngine.gerarInsightsAutomaticos(vendas);
+                        return analyticsEngine.gerarInsightsAutomaticos(vendaController, this::publish);
+                    }
+
+                    @Override
+                    protected void process(List<AnalyticsEngine.ResultadoAnalise> resultados) {
+                        // Exibe os insights dos analisadores que já terminaram, sem esperar os mais lentos
+                        for (AnalyticsEngine.ResultadoAnalise resultado : resultados) {
+                            System.out.println(" " + resultado);
+                            parciais.addAll(resultado.getInsights());
+                        }
+                        if (!isDone() && !parciais.isEmpty()) {
+                            parciais.sort(Comparator.comparingInt(insight -> insight.getTipo().getPrioridade()));
+                            exibirInsights(parciais);
+                        }
                     }
 
                     @Override
@@ -600,9 +657,15 @@ public class SimplifiedDashboardView extends JFrame implements VendaListener {
                             System.err.println(" Erro ao gerar insights: " + e.getMessage());
                             mostrarErroInsights("Erro ao gerar insights: " + e.getMessage());
                         }
+                        geracaoInsights = null;
+                        if (insightsPendentes) {
+                            insightsPendentes = false;
+                            atualizarInsights();
+                        }
                     }
                 };
 
+        geracaoInsights = worker;
         worker.execute();
     }
 
@@ -676,59 +739,86 @@ public class SimplifiedDashboardView extends JFrame implements VendaListener {
     }
 
     private void atualizarGraficos() {
+        atualizarGraficos(false);
+    }
+
+    /**
+     * @param somenteSeMudou não chama o R se a quantidade por produto for a mesma do gráfico exibido
+     */
+    private void atualizarGraficos(boolean somenteSeMudou) {
         System.out.println(" Atualizando gráficos...");
 
-        try {
-            List<Venda> vendas = vendaController.obterTodasVendas();
-            System.out.println(" Carregando " + vendas.size() + " vendas para gráficos");
+        // A leitura do cache pode validar ou recarregar do banco: fica no worker, fora da EDT
+        SwingWorker<String, Void> worker = new SwingWorker<>() {
+            private boolean vazio;
+            private Map<String, Integer> dados;
 
-            if (vendas.isEmpty()) {
-                mostrarMensagemGrafico("Nenhuma venda registrada para gerar gráficos.");
-                return;
+            @Override
+            protected String doInBackground() throws Exception {
+                VendaStore vendas = vendaController.obterStore();
+                System.out.println(" Carregando " + vendas.tamanho() + " vendas para gráficos");
+                if (vendas.isVazio()) {
+                    vazio = true;
+                    return null;
+                }
+                dados = util.RGraphUtil.agregareVendasPorProduto(vendas);
+                if (somenteSeMudou && dados.equals(dadosGraficoExibido)) {
+                    dados = null;
+                    return null;
+                }
+                publish((Void) null);
+                return util.RGraphUtil.gerarGraficoVendas(dados);
             }
 
-            chartPanel.removeAll();
-            JLabel loading = new JLabel("Gerando gráficos avançados...", JLabel.CENTER);
-            loading.setFont(new Font("Segoe UI", Font.PLAIN, 16));
-            loading.setForeground(Color.GRAY);
-            chartPanel.add(loading);
-            chartPanel.revalidate();
-            chartPanel.repaint();
-
-            SwingWorker<String, Void> worker = new SwingWorker<>() {
-                @Override
-                protected String doInBackground() throws Exception {
-                    return util.RGraphUtil.gerarGraficoVendas(vendas);
-                }
+            @Override
+            protected void process(List<Void> sinais) {
+                chartPanel.removeAll();
+                JLabel loading = new JLabel("Gerando gráficos avançados...", JLabel.CENTER);
+                loading.setFont(new Font("Segoe UI", Font.PLAIN, 16));
+                loading.setForeground(Color.GRAY);
+                chartPanel.add(loading);
+                chartPanel.revalidate();
+                chartPanel.repaint();
+            }
 
-                @Override
-                protected void done() {
-                    try {
-                        String imagePath = get();
-                        if (imagePath != null && new File(imagePath).exists()) {
-                            System.out.println(" Gráfico gerado: " + imagePath);
-                            exibirGrafico(imagePath);
-                        } else {
-                            System.err.println(" Gráfico não foi gerado");
-                            mostrarErroGrafico("O arquivo de imagem não foi gerado pelo R.");
-                        }
-                    } catch (Exception e) {
-                        System.err.println(" Erro ao gerar gráfico: " + e.getMessage());
-                        mostrarErroGrafico("Erro ao processar a imagem do gráfico: " + e.getMessage());
+            @Override
+            protected void done() {
+                try {
+                    String imagePath = get();
+                    if (vazio) {
+                        dadosGraficoExibido = null;
+                        mostrarMensagemGrafico("Nenhuma venda registrada para gerar gráficos.");
+                    } else if (dados == null) {
+                        System.out.println(" Quantidade por produto inalterada; gráfico mantido");
+                    } else if (imagePath != null && new File(imagePath).exists()) {
+                        System.out.println(" Gráfico gerado: " + imagePath);
+                        dadosGraficoExibido = dados;
+                        exibirGrafico(imagePath);
+                    } else {
+                        System.err.println(" Gráfico não foi gerado");
+                        dadosGraficoExibido = null;
+                        mostrarErroGrafico("O arquivo de imagem não foi gerado pelo R.");
+                    }
+                } catch (ExecutionException e) {
+                    dadosGraficoExibido = null;
+                    if (e.getCause() instanceof SQLException) {
+                        System.err.println(" Erro ao atualizar gráficos: " + e.getCause().getMessage());
+                        JOptionPane.showMessageDialog(SimplifiedDashboardView.this,
+                                "Erro ao carregar dados para gráficos: " + e.getCause().getMessage(),
+                                "Erro",
+                                JOptionPane.ERROR_MESSAGE);
+                        mostrarErroGrafico("Erro ao carregar dados para gráficos.");
+                    } else {
+                        System.err.println(" Erro ao gerar gráfico: " + e.getCause().getMessage());
+                        mostrarErroGrafico("Erro ao processar a imagem do gráfico: " + e.getCause().getMessage());
                     }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
                 }
-            };
-
-            worker.execute();
+            }
+        };
 
-        } catch (Exception e) {
-            System.err.println(" Erro ao atualizar gráficos: " + e.getMessage());
-            JOptionPane.showMessageDialog(this,
-                    "Erro ao carregar dados para gráficos: " + e.getMessage(),
-                    "Erro",
-                    JOptionPane.ERROR_MESSAGE);
-            mostrarErroGrafico("Erro ao carregar dados para gráficos.");
-        }
+        worker.execute();
     }
 
     private void exibirGrafico(String imagePath) {
@@ -935,9 +1025,6 @@ public class SimplifiedDashboardView extends JFrame implements VendaListener {
                 protected void done() {
                     try {
                         DataImporter.ImportResult resultado = get();
-                        if (resultado.isSuccess() && resultado.getSuccessCount() > 0) {
-                            atualizarDashboard();
-                        }
                         mostrarResultadoImportacao(resultado);
                     } catch (Exception e) {
                         JOptionPane.showMessageDialog(SimplifiedDashboardView.this, "Erro na importação CSV:\n" + e.getMessage(), "Erro de Importação", JOptionPane.ERROR_MESSAGE);
@@ -970,9 +1057,6 @@ public class SimplifiedDashboardView extends JFrame implements VendaListener {
                 protected void done() {
                     try {
                         DataImporter.ImportResult resultado = get();
-                        if (resultado.isSuccess() && resultado.getSuccessCount() > 0) {
-                            atualizarDashboard();
-                        }
                         mostrarResultadoImportacao(resultado);
                     } catch (Exception e) {
                         JOptionPane.showMessageDialog(SimplifiedDashboardView.this, "Erro na importação de Texto:\n" + e.getMessage(), "Erro de Importação", JOptionPane.ERROR_MESSAGE);
@@ -1102,11 +1186,6 @@ public class SimplifiedDashboardView extends JFrame implements VendaListener {
                     // Processar diretamente na thread principal
                     DataImporter.ImportResult resultado = dataImporter.importFromWhatsApp(texto);
 
-                    // ✅ ATUALIZAR DASHBOARD SE HOUVE SUCESSO
-                    if (resultado.isSuccess() && resultado.getSuccessCount() > 0) {
-                        atualizarDashboard();
-                    }
-
                     // ✅ MOSTRAR RESULTADO
                     mostrarResultadoImportacao(resultado);
 
@@ -1436,7 +1515,34 @@ public class SimplifiedDashboardView extends JFrame implements VendaListener {
         insightsPanel.repaint();
     }
 
+    /**
+     * Lê o resumo em um SwingWorker (a validação do cache consulta o banco) e troca o painel na EDT
+     */
     private void updateStatsInSidebar() {
+        int geracao = ++geracaoEstatisticas;
+        new SwingWorker<DashboardSummary, Void>() {
+            @Override
+            protected DashboardSummary doInBackground() throws Exception {
+                return vendaController.obterResumoDashboard();
+            }
+
+            @Override
+            protected void done() {
+                if (geracao != geracaoEstatisticas) {
+                    return;
+                }
+                DashboardSummary resumo = null;
+                try {
+                    resumo = get();
+                } catch (Exception e) {
+                    System.err.println(" Erro ao carregar estatísticas: " + e.getMessage());
+                }
+                substituirPainelEstatisticas(criarPainelEstatisticas(resumo, resumo == null));
+            }
+        }.execute();
+    }
+
+    private void substituirPainelEstatisticas(JPanel newStatsPanel) {
         JPanel sidebar = null;
         for (Component comp : ((JPanel) this.getContentPane().getComponent(0)).getComponents()) {
             if (comp instanceof JPanel && "sidebar".equals(comp.getName())) {
@@ -1450,7 +1556,6 @@ public class SimplifiedDashboardView extends JFrame implements VendaListener {
                 Component sidebarComp = sidebar.getComponent(i);
                 if (sidebarComp instanceof JPanel && "statsPanel".equals(sidebarComp.getName())) {
                     sidebar.remove(i);
-                    JPanel newStatsPanel = criarPainelEstatisticas();
                     newStatsPanel.setName("statsPanel");
                     sidebar.add(newStatsPanel, i);
                     sidebar.revalidate();
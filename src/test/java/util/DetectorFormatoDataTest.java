@@ -0,0 +1,108 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.format.ResolverStyle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DetectorFormatoDataTest {
+
+    // O laço que o DataImporter usava antes do detector (e que ainda é o último recurso)
+    private static final List<DateTimeFormatter> FORMATADORES_ANTIGOS = Arrays.asList(
+            DateTimeFormatter.ofPattern("dd/MM/yyyy"),
+            DateTimeFormatter.ofPattern("yyyy-MM-dd"),
+            DateTimeFormatter.ofPattern("dd-MM-yyyy"),
+            DateTimeFormatter.ofPattern("MM/dd/yyyy"),
+            DateTimeFormatter.ISO_LOCAL_DATE
+    );
+
+    private static LocalDate interpretarComLacoAntigo(String texto) {
+        for (DateTimeFormatter formatter : FORMATADORES_ANTIGOS) {
+            try {
+                return LocalDate.parse(texto, formatter);
+            } catch (DateTimeParseException ignored) {
+            }
+        }
+        return null;
+    }
+
+    private static boolean validaEmAlgumFormatoEstrito(String texto) {
+        for (String padrao : new String[]{"dd/MM/uuuu", "uuuu-MM-dd", "dd-MM-uuuu", "MM/dd/uuuu"}) {
+            try {
+                LocalDate.parse(texto, DateTimeFormatter.ofPattern(padrao).withResolverStyle(ResolverStyle.STRICT));
+                return true;
+            } catch (DateTimeParseException ignored) {
+            }
+        }
+        return false;
+    }
+
+    @Test
+    void semAmostraConcordaComOLacoAntigo() {
+        DetectorFormatoData detector = new DetectorFormatoData();
+        // Todo dia 00-39 e mês 00-14, em anos comuns, bissextos e viradas de século sem e com 29/02
+        for (int ano : new int[]{1999, 2000, 2023, 2024, 2100}) {
+            for (int mes = 0; mes < 15; mes++) {
+                for (int dia = 0; dia < 40; dia++) {
+                    for (String texto : new String[]{
+                            String.format("%02d/%02d/%04d", dia, mes, ano),
+                            String.format("%04d-%02d-%02d", ano, mes, dia)}) {
+                        LocalDate detectada = detector.interpretar(texto);
+                        LocalDate antiga = interpretarComLacoAntigo(texto);
+                        if (detectada != null) {
+                            assertEquals(antiga, detectada, texto);
+                        } else if (antiga != null) {
+                            // Só o resolver SMART aceita o que os formatos de largura fixa recusam (ex.: 31/04 vira 30/04)
+                            assertFalse(validaEmAlgumFormatoEstrito(texto), texto);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void amostraEmMesDiaAnoTravaOFormatoParaAsAmbiguas() {
+        List<String> amostra = new ArrayList<>();
+        for (int i = 0; i < DetectorFormatoData.AMOSTRA; i++) {
+            amostra.add(String.format("%02d/%02d/2024", 1 + i % 12, 1 + (i * 7) % 28));
+        }
+        DetectorFormatoData detector = DetectorFormatoData.detectar(amostra);
+
+        assertEquals(DetectorFormatoData.Formato.MES_DIA_ANO, detector.getFormato());
+        assertEquals(LocalDate.of(2024, 3, 4), detector.interpretar("03/04/2024"));
+        assertEquals(LocalDate.of(2024, 12, 31), detector.interpretar("12/31/2024"));
+    }
+
+    @Test
+    void amostraSoComDatasAmbiguasMantemAPreferencia() {
+        DetectorFormatoData detector = DetectorFormatoData.detectar(Arrays.asList("03/04/2024", "05/06/2024", "hoje"));
+
+        assertEquals(DetectorFormatoData.Formato.DIA_MES_ANO, detector.getFormato());
+        assertEquals(LocalDate.of(2024, 4, 3), detector.interpretar("03/04/2024"));
+    }
+
+    @Test
+    void amostraVaziaEquivaleAoConstrutorPadrao() {
+        assertEquals(new DetectorFormatoData().getFormato(),
+                DetectorFormatoData.detectar(Collections.emptyList()).getFormato());
+    }
+
+    @Test
+    void dataForaDoFormatoDoArquivoUsaOsDemais() {
+        DetectorFormatoData detector = DetectorFormatoData.detectar(Collections.nCopies(10, "12/31/2024"));
+
+        assertEquals(LocalDate.of(2024, 5, 6), detector.interpretar("2024-05-06"));
+        assertEquals(LocalDate.of(2024, 5, 6), detector.interpretar("06-05-2024"));
+        assertNull(detector.interpretar("6/5/2024"));
+        assertNull(detector.interpretar("2024-02-30"));
+    }
+}
@@ -0,0 +1,164 @@
+package util;
+
+import model.VendaStore;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EstadoAnaliticoTest {
+
+    private static final int HOJE = VendaStore.paraDia(LocalDate.now());
+
+    private static VendaStore gerarVendas(Random random, int total) {
+        VendaStore vendas = new VendaStore();
+        for (int id = 1; id <= total; id++) {
+            vendas.adicionar(id, "Produto " + random.nextInt(20), 1 + random.nextInt(5),
+                    100 + random.nextInt(20_000), HOJE - random.nextInt(120), 0);
+        }
+        return vendas;
+    }
+
+    /**
+     * Aplica no store e no estado as mesmas alterações, na ordem em que o VendaCache notifica
+     */
+    private static void aplicarAlteracoes(Random random, VendaStore vendas, EstadoAnalitico estado, int total) {
+        int proximoId = vendas.getMaiorId() + 1;
+        for (int n = 0; n < total; n++) {
+            int operacao = random.nextInt(3);
+            if (operacao == 0 || vendas.isVazio()) {
+                // Produtos novos e dias antigos, de hoje e da semana corrente
+                vendas.adicionar(proximoId++, "Produto " + random.nextInt(30), 1 + random.nextInt(5),
+                        100 + random.nextInt(20_000), HOJE - random.nextInt(random.nextBoolean() ? 7 : 150), 0);
+                estado.onInsercao(vendas, vendas.tamanho() - 1);
+            } else if (operacao == 1) {
+                int indice = random.nextInt(vendas.tamanho());
+                int produtoAnterior = vendas.getProdutoId(indice);
+                int quantidadeAnterior = vendas.getQuantidade(indice);
+                long centavosAnterior = vendas.getValorUnitarioCentavos(indice);
+                vendas.atualizar(indice, "Produto " + random.nextInt(30), 1 + random.nextInt(5),
+                        100 + random.nextInt(20_000), vendas.getVersao(indice) + 1);
+                estado.onAtualizacao(vendas, indice, produtoAnterior, quantidadeAnterior, centavosAnterior);
+            } else {
+                int indice = random.nextInt(vendas.tamanho());
+                estado.onRemocao(vendas, indice);
+                vendas.remover(indice);
+            }
+        }
+    }
+
+    private static void assertResumosIguais(ResumoAnalitico esperado, ResumoAnalitico obtido) {
+        assertEquals(esperado.getVendasJanelaRecente(), obtido.getVendasJanelaRecente());
+        assertEquals(esperado.getVendasHistorico(), obtido.getVendasHistorico());
+        assertEquals(esperado.getCentavosUltimos30Dias(), obtido.getCentavosUltimos30Dias());
+        assertEquals(esperado.getCentavosAnteriores30Dias(), obtido.getCentavosAnteriores30Dias());
+        assertEquals(esperado.getVendasAnteriores30Dias(), obtido.getVendasAnteriores30Dias());
+        assertEquals(esperado.getCentavosUltimos7Dias(), obtido.getCentavosUltimos7Dias());
+        assertEquals(esperado.getVendasUltimos7Dias(), obtido.getVendasUltimos7Dias());
+        assertEquals(esperado.isVendaHoje(), obtido.isVendaHoje());
+        assertEquals(esperado.getCentavosSemanaAnterior(), obtido.getCentavosSemanaAnterior());
+        assertEquals(esperado.getVendasSemanaAnterior(), obtido.getVendasSemanaAnterior());
+        assertEquals(esperado.getCentavosMesAtual(), obtido.getCentavosMesAtual());
+        assertEquals(esperado.getCentavosMesAnterior(), obtido.getCentavosMesAnterior());
+
+        assertEquals(esperado.getPrimeiroDia(), obtido.getPrimeiroDia());
+        assertEquals(esperado.getTotalDias(), obtido.getTotalDias());
+        for (int d = 0; d < esperado.getTotalDias(); d++) {
+            assertEquals(esperado.getCentavosDoDia(d), obtido.getCentavosDoDia(d), "dia " + d);
+            assertEquals(esperado.getVendasDoDia(d), obtido.getVendasDoDia(d), "dia " + d);
+        }
+
+        assertEquals(esperado.getDiasComVenda(), obtido.getDiasComVenda());
+        assertEquals(esperado.getMediaDiaria(), obtido.getMediaDiaria(), 1e-6);
+        assertEquals(esperado.getDesvioPadraoDiario(), obtido.getDesvioPadraoDiario(), 1e-6);
+
+        for (int diaSemana = 0; diaSemana < 7; diaSemana++) {
+            assertEquals(esperado.getCentavosDiaSemana(diaSemana), obtido.getCentavosDiaSemana(diaSemana));
+            assertEquals(esperado.getVendasDiaSemana(diaSemana), obtido.getVendasDiaSemana(diaSemana));
+        }
+
+        // O estado pode reservar posições extras para produtos; as que sobram ficam zeradas
+        int produtos = Math.max(esperado.getTotalProdutos(), obtido.getTotalProdutos());
+        for (int p = 0; p < produtos; p++) {
+            boolean temEsperado = p < esperado.getTotalProdutos();
+            boolean temObtido = p < obtido.getTotalProdutos();
+            assertEquals(temEsperado ? esperado.getQuantidadeProduto(p) : 0, temObtido ? obtido.getQuantidadeProduto(p) : 0);
+            assertEquals(temEsperado ? esperado.getCentavosProduto(p) : 0, temObtido ? obtido.getCentavosProduto(p) : 0);
+            assertEquals(temEsperado ? esperado.getVendasProduto(p) : 0, temObtido ? obtido.getVendasProduto(p) : 0);
+        }
+
+        List<DetectorAnomalias.Anomalia> anomaliasEsperadas = esperado.getAnomalias();
+        List<DetectorAnomalias.Anomalia> anomaliasObtidas = obtido.getAnomalias();
+        assertEquals(anomaliasEsperadas.size(), anomaliasObtidas.size());
+        for (int i = 0; i < anomaliasEsperadas.size(); i++) {
+            assertEquals(anomaliasEsperadas.get(i).getDia(), anomaliasObtidas.get(i).getDia());
+            assertEquals(anomaliasEsperadas.get(i).getValor(), anomaliasObtidas.get(i).getValor(), 1e-9);
+            assertEquals(anomaliasEsperadas.get(i).getZScore(), anomaliasObtidas.get(i).getZScore(), 1e-6);
+        }
+    }
+
+    @Test
+    void alteracoesIncrementaisEquivalemAoCalculoCompleto() throws SQLException {
+        Random random = new Random(42);
+        VendaStore vendas = gerarVendas(random, 2_000);
+        // Sem cache: só os callbacks do observador são exercitados
+        EstadoAnalitico estado = new EstadoAnalitico(null);
+        estado.onRecarga(vendas);
+
+        for (int rodada = 0; rodada < 5; rodada++) {
+            aplicarAlteracoes(random, vendas, estado, 400);
+            assertResumosIguais(ResumoAnalitico.calcular(vendas, HOJE, Integer.MIN_VALUE),
+                    estado.obterResumo(HOJE, Integer.MIN_VALUE));
+        }
+        assertEquals(1, estado.getReconstrucoes());
+        assertEquals(0, estado.getDivergencias());
+    }
+
+    @Test
+    void totaisEntreDatasSomamAsVendasDoIntervalo() throws SQLException {
+        Random random = new Random(7);
+        VendaStore vendas = gerarVendas(random, 500);
+        EstadoAnalitico estado = new EstadoAnalitico(null);
+        estado.onRecarga(vendas);
+        aplicarAlteracoes(random, vendas, estado, 200);
+
+        int inicio = HOJE - 45;
+        int fim = HOJE - 10;
+        long centavos = 0;
+        long quantidade = 0;
+        int total = 0;
+        for (int i = 0; i < vendas.tamanho(); i++) {
+            if (vendas.getDia(i) >= inicio && vendas.getDia(i) <= fim) {
+                centavos += vendas.getTotalCentavos(i);
+                quantidade += vendas.getQuantidade(i);
+                total++;
+            }
+        }
+        EstadoAnalitico.Totais totais = estado.obterTotaisEntre(LocalDate.ofEpochDay(inicio), LocalDate.ofEpochDay(fim));
+        assertEquals(centavos, totais.getCentavos());
+        assertEquals(quantidade, totais.getQuantidade());
+        assertEquals(total, totais.getVendas());
+    }
+
+    @Test
+    void faturamentoDivergenteAgendaReconstrucao() {
+        Random random = new Random(3);
+        VendaStore vendas = gerarVendas(random, 100);
+        EstadoAnalitico estado = new EstadoAnalitico(null);
+        estado.onRecarga(vendas);
+
+        // Valor anterior informado errado: a contagem bate, o faturamento não
+        int indice = 10;
+        int produtoAnterior = vendas.getProdutoId(indice);
+        int quantidadeAnterior = vendas.getQuantidade(indice);
+        long centavosAnterior = vendas.getValorUnitarioCentavos(indice);
+        vendas.atualizar(indice, vendas.getProduto(indice), quantidadeAnterior, centavosAnterior + 500, 1);
+        estado.onAtualizacao(vendas, indice, produtoAnterior, quantidadeAnterior, centavosAnterior + 1);
+
+        assertEquals(1, estado.getDivergencias());
+    }
+}
@@ -0,0 +1,138 @@
+package util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeitorCSVMapeadoTest {
+
+    private Path arquivo;
+
+    @BeforeEach
+    void criarArquivo() throws IOException {
+        arquivo = Files.createTempFile("leitor-csv", ".csv");
+    }
+
+    @AfterEach
+    void apagarArquivo() throws IOException {
+        Files.deleteIfExists(arquivo);
+    }
+
+    private List<String[]> lerTudo(int tamanhoJanela, List<Integer> numeros) throws IOException {
+        List<String[]> linhas = new ArrayList<>();
+        try (LeitorCSVMapeado leitor = new LeitorCSVMapeado(arquivo, tamanhoJanela)) {
+            LeitorCSVMapeado.Linha linha;
+            while ((linha = leitor.proxima()) != null) {
+                linhas.add(linha.campos().textos());
+                numeros.add(linha.getNumero());
+            }
+        }
+        return linhas;
+    }
+
+    private void gravar(String conteudo) throws IOException {
+        Files.write(arquivo, conteudo.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void linhaQueCruzaAJanelaEhRemapeada() throws IOException {
+        StringBuilder conteudo = new StringBuilder("produto,quantidade,valor,data\n");
+        for (int i = 0; i < 200; i++) {
+            conteudo.append("Produto ").append(i).append(',').append(i % 9 + 1).append(",\"")
+                    .append(i).append(",50\",01/02/2024\n");
+        }
+        gravar(conteudo.toString());
+
+        // 64 bytes não é múltiplo de nenhuma linha: quase toda janela termina no meio de uma
+        List<Integer> numeros = new ArrayList<>();
+        List<String[]> linhas = lerTudo(64, numeros);
+
+        assertEquals(201, linhas.size());
+        for (int i = 0; i < 200; i++) {
+            String[] campos = linhas.get(i + 1);
+            assertArrayEquals(new String[]{"Produto " + i, String.valueOf(i % 9 + 1), i + ",50", "01/02/2024"},
+                    campos, "linha " + (i + 2));
+            assertEquals(i + 2, numeros.get(i + 1));
+        }
+    }
+
+    @Test
+    void linhaMaiorQueAJanelaFalha() throws IOException {
+        gravar("curta\n" + "x".repeat(100) + "\n");
+
+        try (LeitorCSVMapeado leitor = new LeitorCSVMapeado(arquivo, 32)) {
+            assertNotNull(leitor.proxima());
+            IOException erro = assertThrows(IOException.class, leitor::proxima);
+            assertTrue(erro.getMessage().contains("Linha 2"), erro.getMessage());
+        }
+    }
+
+    @Test
+    void quebraDeLinhaEntreAspasFicaNoCampo() throws IOException {
+        gravar("\"Café\nespecial\",2,\"10,00\",01/02/2024\r\n"
+                + "\"Chá \"\"verde\"\"\",1,5.5,02/02/2024\n"
+                + "Pão,3,1.25,03/02/2024");
+
+        List<Integer> numeros = new ArrayList<>();
+        List<String[]> linhas = lerTudo(48, numeros);
+
+        assertEquals(3, linhas.size());
+        assertArrayEquals(new String[]{"Café\nespecial", "2", "10,00", "01/02/2024"}, linhas.get(0));
+        assertArrayEquals(new String[]{"Chá \"verde\"", "1", "5.5", "02/02/2024"}, linhas.get(1));
+        assertArrayEquals(new String[]{"Pão", "3", "1.25", "03/02/2024"}, linhas.get(2));
+        // A primeira linha ocupa duas linhas físicas
+        assertEquals(List.of(1, 3, 4), numeros);
+    }
+
+    @Test
+    void bomUtf8EhIgnorado() throws IOException {
+        byte[] bom = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+        byte[] texto = "produto,quantidade\nCafé,2\n".getBytes(StandardCharsets.UTF_8);
+        byte[] conteudo = new byte[bom.length + texto.length];
+        System.arraycopy(bom, 0, conteudo, 0, bom.length);
+        System.arraycopy(texto, 0, conteudo, bom.length, texto.length);
+        Files.write(arquivo, conteudo);
+
+        List<String[]> linhas = lerTudo(1024, new ArrayList<>());
+
+        assertEquals("produto", linhas.get(0)[0]);
+        assertArrayEquals(new String[]{"Café", "2"}, linhas.get(1));
+    }
+
+    @Test
+    void decimalLidoDosBytesConcordaComParseDouble() throws IOException {
+        gravar("12.5,\"R$ 1234,56\",0.1,7,0.0000000000000001,1234567890123456789,3.14159265358979323846\n");
+
+        try (LeitorCSVMapeado leitor = new LeitorCSVMapeado(arquivo, 1024)) {
+            LeitorCSVMapeado.Campos campos = leitor.proxima().campos();
+            assertEquals(12.5, campos.decimal(0));
+            assertEquals(1234.56, campos.decimal(1));
+            assertEquals(0.1, campos.decimal(2));
+            assertEquals(7.0, campos.decimal(3));
+            // Mais de 15 casas ou dígitos significativos caem no Double.parseDouble
+            assertEquals(Double.parseDouble("0.0000000000000001"), campos.decimal(4));
+            assertEquals(Double.parseDouble("1234567890123456789"), campos.decimal(5));
+            assertEquals(Double.parseDouble("3.14159265358979323846"), campos.decimal(6));
+        }
+    }
+
+    @Test
+    void decimalRecusaCampoSemDigitosOuComDoisSeparadores() throws IOException {
+        gravar("abc,\"1,2.3\"\n");
+
+        try (LeitorCSVMapeado leitor = new LeitorCSVMapeado(arquivo, 1024)) {
+            LeitorCSVMapeado.Campos campos = leitor.proxima().campos();
+            assertThrows(NumberFormatException.class, () -> campos.decimal(0));
+            assertThrows(NumberFormatException.class, () -> campos.decimal(1));
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package util;
+
+import model.Venda;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportUtilTest {
+
+    private Path arquivo;
+
+    @BeforeEach
+    void criarArquivo() throws IOException {
+        arquivo = Files.createTempFile("relatorio", ".csv");
+    }
+
+    @AfterEach
+    void apagarArquivo() throws IOException {
+        Files.deleteIfExists(arquivo);
+    }
+
+    @Test
+    void campoSoGanhaAspasQuandoPrecisa() {
+        assertEquals("Café", ReportUtil.campo("Café"));
+        assertEquals("\"Mouse, sem fio\"", ReportUtil.campo("Mouse, sem fio"));
+        assertEquals("\"Monitor 27\"\"\"", ReportUtil.campo("Monitor 27\""));
+        assertEquals("\"Linha\nquebrada\"", ReportUtil.campo("Linha\nquebrada"));
+        assertEquals("", ReportUtil.campo(null));
+    }
+
+    @Test
+    void exportacaoEhLidaDeVoltaPeloLeitorCSV() throws IOException {
+        List<Venda> vendas = Arrays.asList(
+                new Venda(1, "Mouse Logitech, sem fio", 2, 50.0, Date.valueOf("2024-02-01")),
+                new Venda(2, "Monitor 27\" \"Dell\"", 1, 1299.9, Date.valueOf("2024-02-02")),
+                new Venda(3, "Pão de queijo", 12, 0.75, Date.valueOf("2024-02-03")));
+
+        ReportUtil.exportarCSV(vendas, arquivo.toString());
+
+        List<String[]> linhas = new ArrayList<>();
+        try (LeitorCSVMapeado leitor = new LeitorCSVMapeado(arquivo)) {
+            LeitorCSVMapeado.Linha linha;
+            while ((linha = leitor.proxima()) != null) {
+                linhas.add(linha.campos().textos());
+            }
+        }
+
+        assertEquals(4, linhas.size());
+        assertArrayEquals(new String[]{"Produto", "Quantidade", "Valor Unitário", "Data"}, linhas.get(0));
+        for (int i = 0; i < vendas.size(); i++) {
+            Venda venda = vendas.get(i);
+            String[] campos = linhas.get(i + 1);
+            assertEquals(venda.getProduto(), campos[0]);
+            assertEquals(venda.getQuantidade(), Integer.parseInt(campos[1]));
+            assertEquals(venda.getValorUnitario(), Double.parseDouble(campos[2]));
+            assertEquals(venda.getData().toString(), campos[3]);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenizadorWhatsAppTest {
+
+    private static TokenizadorWhatsApp.Mensagem interpretar(String linha) {
+        return TokenizadorWhatsApp.interpretar(linha);
+    }
+
+    @Test
+    void cabecalhoAndroidDaDataERemoveRemetente() {
+        TokenizadorWhatsApp.Mensagem mensagem = interpretar("15/01/2024 14:30 - Maria: Vendeu 2 Mouse Logitech por R$ 85,50 cada");
+
+        assertEquals(LocalDate.of(2024, 1, 15), mensagem.getData());
+        assertEquals("Vendeu 2 Mouse Logitech por R$ 85,50 cada", mensagem.getTexto());
+        assertEquals("Mouse Logitech", mensagem.getProduto());
+        assertEquals(2, mensagem.getQuantidade());
+        assertEquals(85.5, mensagem.getValor());
+        assertTrue(mensagem.isVenda());
+    }
+
+    @Test
+    void cabecalhoIPhoneComSegundosEAnoCurto() {
+        TokenizadorWhatsApp.Mensagem mensagem = interpretar("[16/01/24, 09:05:12] João: Comprei 3 Teclado Mecânico R$ 120,00");
+
+        assertEquals(LocalDate.of(2024, 1, 16), mensagem.getData());
+        assertEquals("Teclado Mecânico", mensagem.getProduto());
+        assertEquals(3, mensagem.getQuantidade());
+        assertEquals(120.0, mensagem.getValor());
+    }
+
+    @Test
+    void cabecalhoComDataInvalidaNaoTemData() {
+        TokenizadorWhatsApp.Mensagem mensagem = interpretar("31/02/2024 10:00 - Maria: Vendeu 1 Cabo HDMI R$ 30");
+
+        assertNull(mensagem.getData());
+        assertEquals("Cabo HDMI", mensagem.getProduto());
+        assertEquals(30.0, mensagem.getValor());
+    }
+
+    @Test
+    void semCabecalhoNaoTemData() {
+        assertNull(interpretar("Vendeu 2 Mouse R$ 50").getData());
+    }
+
+    @Test
+    void palavrasDeLigacaoSaemSoComoPalavraInteira() {
+        // "por", "x" e "R" dentro de nomes ficam no produto
+        TokenizadorWhatsApp.Mensagem mensagem = interpretar("Vendi 2 Suporte Xbox Roteador por R$ 35 cada");
+
+        assertEquals("Suporte Xbox Roteador", mensagem.getProduto());
+        assertEquals(2, mensagem.getQuantidade());
+        assertEquals(35.0, mensagem.getValor());
+    }
+
+    @Test
+    void pontoDeMilharNaoViraDecimal() {
+        assertEquals(1500.0, interpretar("Vendeu 1 Notebook Dell por R$ 1.500").getValor());
+        assertEquals(1500.0, interpretar("Vendeu 1 Notebook Dell por R$ 1.500,00").getValor());
+        assertEquals(1500.5, interpretar("Vendeu 1 Notebook Dell por R$ 1500,5").getValor());
+        assertEquals(1.5, interpretar("Vendeu 1 Chiclete por R$ 1.50").getValor());
+    }
+
+    @Test
+    void produtoAntesDosDoisPontosSemCabecalho() {
+        TokenizadorWhatsApp.Mensagem mensagem = interpretar("Smartphone Samsung: 4 unidades x R$ 1.500,00");
+
+        assertEquals("Smartphone Samsung", mensagem.getProduto());
+        assertEquals(4, mensagem.getQuantidade());
+        assertEquals(1500.0, mensagem.getValor());
+    }
+
+    @Test
+    void comCabecalhoOTrechoAntesDosDoisPontosEhRemetente() {
+        TokenizadorWhatsApp.Mensagem mensagem =
+                interpretar("15/01/2024 14:30 - Loja Centro: Smartphone Samsung: 4 unidades x R$ 1.500,00");
+
+        assertEquals("Smartphone Samsung", mensagem.getProduto());
+        assertEquals(4, mensagem.getQuantidade());
+        assertEquals(1500.0, mensagem.getValor());
+    }
+
+    @Test
+    void pontuacaoNoFimDaPalavraNaoEntraNoProduto() {
+        assertEquals("Mouse Logitech", interpretar("Vendeu 2 Mouse Logitech, R$ 50").getProduto());
+        assertEquals("Cabo USB-C", interpretar("Vendeu 3 Cabo USB-C! R$ 25").getProduto());
+    }
+
+    @Test
+    void valorEmReaisEQuantidadeComUnidade() {
+        TokenizadorWhatsApp.Mensagem mensagem = interpretar("5 Carregador USB-C vendidos por 45,90 reais");
+
+        assertEquals("Carregador USB-C", mensagem.getProduto());
+        assertEquals(5, mensagem.getQuantidade());
+        assertEquals(45.9, mensagem.getValor());
+
+        assertEquals(3, interpretar("Cabo HDMI 3x R$ 20").getQuantidade());
+    }
+
+    @Test
+    void semMarcacaoDeDinheiroValorEhOUltimoNumeroMaiorQueDez() {
+        TokenizadorWhatsApp.Mensagem mensagem = interpretar("Vendeu 2 Fone Bluetooth 89");
+
+        assertEquals(2, mensagem.getQuantidade());
+        assertEquals(89.0, mensagem.getValor());
+    }
+
+    @Test
+    void mensagemSemValorNaoEhVenda() {
+        TokenizadorWhatsApp.Mensagem mensagem = interpretar("15/01/2024 14:31 - Maria: Bom dia pessoal, alguém viu o pedido?");
+
+        assertFalse(mensagem.isVenda());
+        assertEquals(1, mensagem.getQuantidade());
+    }
+}